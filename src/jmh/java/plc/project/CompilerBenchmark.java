@@ -0,0 +1,96 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each phase of the compiler separately over the programs of the
+ * {@link Corpus}. Every phase starts from the output of the previous phases,
+ * which is prepared once per trial, so only the phase itself is measured.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompilerBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public Corpus.Size size;
+
+    private String source;
+    private List<Token> tokens;
+    private Ast.Source parsed;
+    private Ast.Source analyzed;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(size);
+        tokens = new Lexer(source).lex();
+        parsed = new Parser(tokens).parseSource();
+        analyzed = new Parser(tokens).parseSource();
+        new Analyzer(new plc.project.Scope(null)).visit(analyzed);
+        serialized = AstWriter.write(analyzed);
+    }
+
+    @Benchmark
+    public List<Token> lex() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parse() {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    public byte[] write() {
+        return AstWriter.write(analyzed);
+    }
+
+    /**
+     * Loads the analyzed tree written by {@link AstWriter}, which replaces
+     * all of {@link #lex()}, {@link #parse()} and {@link #analyze()} when the
+     * tree is cached.
+     */
+    @Benchmark
+    public Ast.Source read() {
+        return AstReader.read(serialized);
+    }
+
+    /**
+     * Analyzes the same parsed tree every time, which the analyzer supports
+     * since it overwrites the types and variables it sets.
+     */
+    @Benchmark
+    public Ast.Source analyze() {
+        new Analyzer(new plc.project.Scope(null)).visit(parsed);
+        return parsed;
+    }
+
+    @Benchmark
+    public String generate() {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(analyzed);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public Object interpret() {
+        return new Interpreter(new plc.project.Scope(null)).visit(analyzed).getValue();
+    }
+
+}
@@ -0,0 +1,71 @@
+package plc.project;
+
+/**
+ * Generates the PLC programs used by the benchmarks. Every program is a
+ * valid source which passes the {@link Analyzer} and runs in the
+ * {@link Interpreter}, so each phase can be measured on the same input.
+ *
+ * Programs consist of a single {@code main} function made of repeated blocks,
+ * since the analyzer does not yet support more than one function or locals
+ * shared between statements.
+ */
+public final class Corpus {
+
+    public enum Size {
+        SMALL(10),
+        MEDIUM(500),
+        HUGE(20000);
+
+        private final int blocks;
+
+        Size(int blocks) {
+            this.blocks = blocks;
+        }
+
+        public int getBlocks() {
+            return blocks;
+        }
+    }
+
+    private Corpus() {}
+
+    public static String generate(Size size) {
+        return generate(size.getBlocks());
+    }
+
+    /**
+     * Generates a program with the given number of blocks, each of which
+     * declares a string and runs a loop, an if statement and a switch
+     * statement over the globals.
+     */
+    public static String generate(int blocks) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("VAR counter: Integer = 0;\n");
+        builder.append("VAR i: Integer = 0;\n");
+        builder.append("VAL scale: Decimal = 1.5;\n");
+        builder.append("LIST values: Integer = [1, 2, 3];\n");
+        builder.append("FUN main(): Integer DO\n");
+        for (int k = 0; k < blocks; k++) {
+            builder.append("    LET name").append(k).append(" = \"block\\t").append(k).append("\\n\";\n");
+            builder.append("    i = 0;\n");
+            builder.append("    WHILE i < 3 DO\n");
+            builder.append("        IF i > ").append(k % 3).append(" && counter < 1000 DO\n");
+            builder.append("            counter = counter + i * ").append(k % 97).append(" - 1;\n");
+            builder.append("        ELSE\n");
+            builder.append("            counter = counter - counter / 2;\n");
+            builder.append("        END\n");
+            builder.append("        i = i + 1;\n");
+            builder.append("    END\n");
+            builder.append("    SWITCH counter\n");
+            builder.append("        CASE ").append(k % 5).append(":\n");
+            builder.append("            counter = counter + 1;\n");
+            builder.append("        DEFAULT\n");
+            builder.append("            counter = counter - 1;\n");
+            builder.append("    END\n");
+        }
+        builder.append("    RETURN counter;\n");
+        builder.append("END\n");
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,247 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost per node of {@link Ast.Visitor#visit(Ast)}, which
+ * switches on {@link Ast#getKind()}, against the chain of {@code instanceof}
+ * checks it replaced. The visitor does no work, so only
+ * the dispatch is measured.
+ *
+ * The nodes are either a shuffled mix of every node class, only
+ * {@link Ast.Source} (the first class in the chain), or only
+ * {@link Ast.Expression.PlcList} (the last).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+
+    private static final int NODES = 1 << 12;
+
+    @Param({"MIXED", "FIRST", "LAST"})
+    public String nodes;
+
+    private Ast[] asts;
+    private final Ast.Visitor<Integer> visitor = new Kinds();
+
+    @Setup
+    public void setup() {
+        List<Ast> kinds = kinds();
+        List<Ast> list = new ArrayList<>();
+        for (int i = 0; i < NODES; i++) {
+            switch (nodes) {
+                case "FIRST":
+                    list.add(kinds.get(0));
+                    break;
+                case "LAST":
+                    list.add(kinds.get(kinds.size() - 1));
+                    break;
+                default:
+                    list.add(kinds.get(i % kinds.size()));
+            }
+        }
+        Collections.shuffle(list, new Random(0));
+        asts = list.toArray(new Ast[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int kind() {
+        int sum = 0;
+        for (Ast ast : asts) {
+            sum += visitor.visit(ast);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODES)
+    public int instanceOf() {
+        int sum = 0;
+        for (Ast ast : asts) {
+            sum += chain(visitor, ast);
+        }
+        return sum;
+    }
+
+    /**
+     * The previous implementation of {@link Ast.Visitor#visit(Ast)}.
+     */
+    private static <T> T chain(Ast.Visitor<T> visitor, Ast ast) {
+        if (ast instanceof Ast.Source) {
+            return visitor.visit((Ast.Source) ast);
+        } else if (ast instanceof Ast.Global) {
+            return visitor.visit((Ast.Global) ast);
+        } else if (ast instanceof Ast.Function) {
+            return visitor.visit((Ast.Function) ast);
+        } else if (ast instanceof Ast.Statement.Expression) {
+            return visitor.visit((Ast.Statement.Expression) ast);
+        } else if (ast instanceof Ast.Statement.Declaration) {
+            return visitor.visit((Ast.Statement.Declaration) ast);
+        } else if (ast instanceof Ast.Statement.Assignment) {
+            return visitor.visit((Ast.Statement.Assignment) ast);
+        } else if (ast instanceof Ast.Statement.If) {
+            return visitor.visit((Ast.Statement.If) ast);
+        } else if (ast instanceof Ast.Statement.Switch) {
+            return visitor.visit((Ast.Statement.Switch) ast);
+        } else if (ast instanceof Ast.Statement.Case) {
+            return visitor.visit((Ast.Statement.Case) ast);
+        } else if (ast instanceof Ast.Statement.While) {
+            return visitor.visit((Ast.Statement.While) ast);
+        } else if (ast instanceof Ast.Statement.Return) {
+            return visitor.visit((Ast.Statement.Return) ast);
+        } else if (ast instanceof Ast.Expression.Literal) {
+            return visitor.visit((Ast.Expression.Literal) ast);
+        } else if (ast instanceof Ast.Expression.Group) {
+            return visitor.visit((Ast.Expression.Group) ast);
+        } else if (ast instanceof Ast.Expression.Binary) {
+            return visitor.visit((Ast.Expression.Binary) ast);
+        } else if (ast instanceof Ast.Expression.Access) {
+            return visitor.visit((Ast.Expression.Access) ast);
+        } else if (ast instanceof Ast.Expression.Function) {
+            return visitor.visit((Ast.Expression.Function) ast);
+        } else if (ast instanceof Ast.Expression.PlcList) {
+            return visitor.visit((Ast.Expression.PlcList) ast);
+        } else {
+            throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * Returns one node of each class, in the order of the chain.
+     */
+    private static List<Ast> kinds() {
+        Ast.Expression value = new Ast.Expression.Literal(BigInteger.ONE);
+        Ast.Statement statement = new Ast.Statement.Expression(value);
+        return Arrays.asList(
+                new Ast.Source(new ArrayList<>(), new ArrayList<>()),
+                new Ast.Global("x", "Integer", true, Optional.of(value)),
+                new Ast.Function("f", new ArrayList<>(), new ArrayList<>(), Optional.empty(), new ArrayList<>()),
+                statement,
+                new Ast.Statement.Declaration("y", Optional.empty(), Optional.of(value)),
+                new Ast.Statement.Assignment(value, value),
+                new Ast.Statement.If(value, List.of(statement), new ArrayList<>()),
+                new Ast.Statement.Switch(value, new ArrayList<>()),
+                new Ast.Statement.Case(Optional.empty(), List.of(statement)),
+                new Ast.Statement.While(value, List.of(statement)),
+                new Ast.Statement.Return(value),
+                value,
+                new Ast.Expression.Group(value),
+                new Ast.Expression.Binary("+", value, value),
+                new Ast.Expression.Access(Optional.empty(), "x"),
+                new Ast.Expression.Function("f", List.of(value)),
+                new Ast.Expression.PlcList(List.of(value))
+        );
+    }
+
+    /**
+     * Returns a distinct number for each node class.
+     */
+    private static final class Kinds implements Ast.Visitor<Integer> {
+
+        @Override
+        public Integer visit(Ast.Source ast) {
+            return 0;
+        }
+
+        @Override
+        public Integer visit(Ast.Global ast) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(Ast.Function ast) {
+            return 2;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Expression ast) {
+            return 3;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Declaration ast) {
+            return 4;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Assignment ast) {
+            return 5;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.If ast) {
+            return 6;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Switch ast) {
+            return 7;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Case ast) {
+            return 8;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.While ast) {
+            return 9;
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Return ast) {
+            return 10;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Literal ast) {
+            return 11;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Group ast) {
+            return 12;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Binary ast) {
+            return 13;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Access ast) {
+            return 14;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Function ast) {
+            return 15;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.PlcList ast) {
+            return 16;
+        }
+
+    }
+
+}
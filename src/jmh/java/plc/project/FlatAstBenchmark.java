@@ -0,0 +1,188 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the object tree with a {@link FlatAst} over the programs of the
+ * {@link Corpus}: the cost of building each from the same tokens, and of
+ * traversing each, the object tree with a visitor, the flat tree by its node
+ * arrays, and the flat tree through {@link FlatAst#accept(Ast.Visitor)}.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation). The memory retained by
+ * a flat tree is {@link FlatAst#getArraySize()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlatAstBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public Corpus.Size size;
+
+    private List<Token> tokens;
+    private Ast.Source tree;
+    private FlatAst flat;
+
+    @Setup
+    public void setup() {
+        tokens = new Lexer(Corpus.generate(size)).lex();
+        flat = FlatAst.of(new Parser(tokens).parseSource());
+        tree = flat.toSource();
+    }
+
+    @Benchmark
+    public Ast.Source buildTree() {
+        return new Parser(tokens).parseSource();
+    }
+
+    /**
+     * Parses the object tree and flattens it, since a {@link FlatAst} is
+     * only built from an object tree.
+     */
+    @Benchmark
+    public FlatAst buildFlat() {
+        return FlatAst.of(new Parser(tokens).parseSource());
+    }
+
+    @Benchmark
+    public int visitTree() {
+        return new Counter().visit(tree);
+    }
+
+    /**
+     * Counts the nodes reachable from the root through the child arrays.
+     */
+    @Benchmark
+    public int walkFlat() {
+        int count = 0;
+        int[] stack = new int[flat.size()];
+        int top = 0;
+        stack[top++] = flat.getRoot();
+        while (top > 0) {
+            int node = stack[--top];
+            count++;
+            for (int i = flat.getChildCount(node) - 1; i >= 0; i--) {
+                stack[top++] = flat.getChild(node, i);
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int acceptFlat() {
+        return flat.accept(new Counter());
+    }
+
+    /**
+     * Counts the nodes of the object tree, the way the compiler phases visit
+     * each child.
+     */
+    private static final class Counter implements Ast.Visitor<Integer> {
+
+        @Override
+        public Integer visit(Ast.Source ast) {
+            return 1 + visitAll(ast.getGlobals()) + visitAll(ast.getFunctions());
+        }
+
+        @Override
+        public Integer visit(Ast.Global ast) {
+            return 1 + ast.getValue().map(this::visit).orElse(0);
+        }
+
+        @Override
+        public Integer visit(Ast.Function ast) {
+            return 1 + visitAll(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Expression ast) {
+            return 1 + visit(ast.getExpression());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Declaration ast) {
+            return 1 + ast.getValue().map(this::visit).orElse(0);
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Assignment ast) {
+            return 1 + visit(ast.getReceiver()) + visit(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.If ast) {
+            return 1 + visit(ast.getCondition()) + visitAll(ast.getThenStatements()) + visitAll(ast.getElseStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Switch ast) {
+            return 1 + visit(ast.getCondition()) + visitAll(ast.getCases());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Case ast) {
+            return 1 + ast.getValue().map(this::visit).orElse(0) + visitAll(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.While ast) {
+            return 1 + visit(ast.getCondition()) + visitAll(ast.getStatements());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Return ast) {
+            return 1 + visit(ast.getValue());
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Literal ast) {
+            return 1;
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Group ast) {
+            return 1 + visit(ast.getExpression());
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Binary ast) {
+            return 1 + visit(ast.getLeft()) + visit(ast.getRight());
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Access ast) {
+            return 1 + ast.getOffset().map(this::visit).orElse(0);
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Function ast) {
+            return 1 + visitAll(ast.getArguments());
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.PlcList ast) {
+            return 1 + visitAll(ast.getValues());
+        }
+
+        private int visitAll(List<? extends Ast> asts) {
+            int count = 0;
+            for (Ast ast : asts) {
+                count += visit(ast);
+            }
+            return count;
+        }
+
+    }
+
+}
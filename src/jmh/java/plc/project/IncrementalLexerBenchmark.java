@@ -0,0 +1,76 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of a single character edit using
+ * {@link IncrementalLexer}, at random line ends and repeatedly at the same
+ * line end (as when typing), against lexing the whole source again. Each
+ * invocation inserts a space and removes it, so the source is the same
+ * before every invocation.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IncrementalLexerBenchmark {
+
+    private static final int OFFSETS = 1 << 10;
+
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public Corpus.Size size;
+
+    private String source;
+    private IncrementalLexer lexer;
+    private final int[] offsets = new int[OFFSETS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(size);
+        lexer = new IncrementalLexer(source);
+        Random random = new Random(42);
+        for (int i = 0; i < OFFSETS; i++) {
+            offsets[i] = source.indexOf('\n', random.nextInt(source.length()));
+        }
+        next = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int random() {
+        int offset = offsets[next++ & (OFFSETS - 1)];
+        lexer.edit(offset, 0, " ");
+        lexer.edit(offset, 1, "");
+        return lexer.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2)
+    public int local() {
+        int offset = offsets[0];
+        lexer.edit(offset, 0, " ");
+        lexer.edit(offset, 1, "");
+        return lexer.size();
+    }
+
+    @Benchmark
+    public List<Token> full() {
+        return new Lexer(source).lex();
+    }
+
+}
@@ -0,0 +1,47 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Lexer#lexRegex()} against the table-driven
+ * {@link Lexer#lex()} over the programs of the {@link Corpus}.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LexerBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public Corpus.Size size;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(size);
+    }
+
+    @Benchmark
+    public List<Token> regex() {
+        return new Lexer(source).lexRegex();
+    }
+
+    @Benchmark
+    public List<Token> table() {
+        return new Lexer(source).lex();
+    }
+
+}
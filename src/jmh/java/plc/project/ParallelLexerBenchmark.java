@@ -0,0 +1,75 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how {@link ParallelLexer} scales with the number of threads over
+ * the programs of the {@link Corpus}, against the sequential {@link Lexer}.
+ * The sequential benchmark takes only the source, so it is not repeated for
+ * every thread count.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelLexerBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Source {
+
+        @Param({"SMALL", "MEDIUM", "HUGE"})
+        public Corpus.Size size;
+
+        private String source;
+
+        @Setup
+        public void setup() {
+            source = Corpus.generate(size);
+        }
+
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+
+        @Param({"1", "2", "4", "8"})
+        public int threads;
+
+        private ForkJoinPool pool;
+
+        @Setup
+        public void setup() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @TearDown
+        public void tearDown() {
+            pool.shutdown();
+        }
+
+    }
+
+    @Benchmark
+    public List<Token> sequential(Source source) {
+        return new Lexer(source.source).lex();
+    }
+
+    @Benchmark
+    public List<Token> parallel(Source source, Pool pool) {
+        return new ParallelLexer(source.source).lex(pool.pool);
+    }
+
+}
@@ -0,0 +1,100 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parser over the programs of the {@link Corpus}, parsing from a
+ * {@link List} of {@link Token}s and from a {@link TokenBuffer}, and the time
+ * to reject invalid sources with and without
+ * {@link Parser#setStackless(boolean)}. Each benchmark takes only the state
+ * it uses, so the corpus size and stackless parameters are not multiplied
+ * over benchmarks they do not affect.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+
+    private static final int INVALID = 100;
+
+    @State(Scope.Benchmark)
+    public static class Tokens {
+
+        @Param({"SMALL", "MEDIUM", "HUGE"})
+        public Corpus.Size size;
+
+        private List<Token> list;
+        private TokenBuffer buffer;
+
+        @Setup
+        public void setup() {
+            String source = Corpus.generate(size);
+            list = new Lexer(source).lex();
+            buffer = new TableLexer(source).lexBuffer();
+        }
+
+    }
+
+    /**
+     * Small sources which each fail deep inside a function, so the time to
+     * reject them is mostly spent creating the {@link ParseException}.
+     */
+    @State(Scope.Benchmark)
+    public static class Invalid {
+
+        @Param({"false", "true"})
+        public boolean stackless;
+
+        private final List<List<Token>> sources = new ArrayList<>();
+
+        @Setup
+        public void setup() {
+            sources.clear();
+            for (int i = 0; i < INVALID; i++) {
+                sources.add(new Lexer("FUN f" + i + "() DO\n    IF x DO\n        WHILE y DO\n            z = (1 + " + i + ";\n        END\n    END\nEND\n").lex());
+            }
+        }
+
+    }
+
+    @Benchmark
+    public Ast.Source parseList(Tokens tokens) {
+        return new Parser(tokens.list).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source parseBuffer(Tokens tokens) {
+        return new Parser(tokens.buffer).parseSource();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INVALID)
+    public int reject(Invalid invalid) {
+        int rejected = 0;
+        for (List<Token> tokens : invalid.sources) {
+            Parser parser = new Parser(tokens);
+            parser.setStackless(invalid.stackless);
+            try {
+                parser.parseSource();
+            } catch (ParseException e) {
+                rejected++;
+            }
+        }
+        return rejected;
+    }
+
+}
@@ -0,0 +1,58 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lexing the programs of the {@link Corpus} into a {@link List} of
+ * {@link Token}s, whose literals are slices of the source until they are
+ * read, against lexing into a {@link TokenBuffer}. The {@code literals}
+ * benchmark also reads every literal, as the parser does for identifiers and
+ * literal tokens.
+ *
+ * Run with {@code ./gradlew jmh}; the GC profiler reports the allocation rate
+ * ({@code gc.alloc.rate.norm} is bytes per operation), which bounds the
+ * memory each representation retains for the tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TokenBufferBenchmark {
+
+    @Param({"SMALL", "MEDIUM", "HUGE"})
+    public Corpus.Size size;
+
+    private String source;
+
+    @Setup
+    public void setup() {
+        source = Corpus.generate(size);
+    }
+
+    @Benchmark
+    public List<Token> slices() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public List<Token> literals() {
+        List<Token> tokens = new Lexer(source).lex();
+        tokens.forEach(Token::getLiteral);
+        return tokens;
+    }
+
+    @Benchmark
+    public TokenBuffer buffer() {
+        return new TableLexer(source).lexBuffer();
+    }
+
+}
@@ -47,9 +47,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
             Ast.Expression val = ast.getValue().get();
             Environment.Type targetType = Environment.getType(ast.getTypeName());
 
-            System.out.println(val.toString());
-            System.out.println(targetType);
-
             if(val.getType() == targetType){
                 visit(ast.getValue().get());
             } else {
@@ -151,7 +148,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
             for(Ast.Statement stmt : ast.getThenStatements()){
                 visit(stmt);
             }
-            System.out.println("true");
         }
         finally{
             scope = scope.getParent();
@@ -162,7 +158,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
             for(Ast.Statement stmt : ast.getElseStatements()){
                 visit(stmt);
             }
-            System.out.println("false");
         }
         finally{
             scope = scope.getParent();
@@ -4,19 +4,60 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.ObjIntConsumer;
 
 /**
  * See the Parser assignment specification for specific notes on each AST class
  * and how to use it.
+ *
+ * The package-private {@code get*OrNull} accessors return the type, variable
+ * or function set by the {@link Analyzer}, or {@code null} if it has not been
+ * set, for code which copies the annotations of unanalyzed trees without the
+ * exception thrown by the public getters.
  */
 public abstract class Ast {
 
+    /**
+     * The class of a node, which {@link Visitor#visit(Ast)} switches on
+     * instead of testing the node against each class in turn.
+     */
+    public enum Kind {
+        SOURCE,
+        GLOBAL,
+        FUNCTION,
+        EXPRESSION_STATEMENT,
+        DECLARATION,
+        ASSIGNMENT,
+        IF,
+        SWITCH,
+        CASE,
+        WHILE,
+        RETURN,
+        LITERAL,
+        GROUP,
+        BINARY,
+        ACCESS,
+        FUNCTION_CALL,
+        LIST
+    }
+
+    private final Kind kind;
+
+    private Ast(Kind kind) {
+        this.kind = kind;
+    }
+
+    public final Kind getKind() {
+        return kind;
+    }
+
     public static final class Source extends Ast {
 
         private final List<Global> globals;
         private final List<Ast.Function> functions;
 
         public Source(List<Global> globals, List<Ast.Function> functions) {
+            super(Kind.SOURCE);
             this.globals = globals;
             this.functions = functions;
         }
@@ -36,6 +77,11 @@ public abstract class Ast {
                     functions.equals(((Source) obj).functions);
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(globals, functions);
+        }
+
         @Override
         public String toString() {
             return "Ast.Source{" +
@@ -59,6 +105,7 @@ public abstract class Ast {
 		}
 
         public Global(String name, String typeName, boolean mutable, Optional<Ast.Expression> value) {
+            super(Kind.GLOBAL);
             this.name = name;
             this.typeName = typeName;
             this.mutable = mutable;
@@ -93,6 +140,10 @@ public abstract class Ast {
             this.variable = variable;
         }
 
+        Environment.Variable getVariableOrNull() {
+            return variable;
+        }
+
 
         @Override
         public boolean equals(Object obj) {
@@ -104,6 +155,11 @@ public abstract class Ast {
                     Objects.equals(variable, ((Global) obj).variable);
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, typeName, mutable, value, variable);
+        }
+
         @Override
         public String toString() {
             return "Ast.Global{" +
@@ -134,6 +190,7 @@ public abstract class Ast {
         }
 
         public Function(String name, List<String> parameters, List<String> parameterTypeNames, Optional<String> returnTypeName, List<Statement> statements) {
+            super(Kind.FUNCTION);
 
             this.name = name;
             this.parameters = parameters;
@@ -173,6 +230,10 @@ public abstract class Ast {
             this.function = function;
         }
 
+        Environment.Function getFunctionOrNull() {
+            return function;
+        }
+
 
         @Override
         public boolean equals(Object obj) {
@@ -185,6 +246,11 @@ public abstract class Ast {
                     Objects.equals(function, ((Ast.Function) obj).function);
         }
 
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, parameters, parameterTypeNames, returnTypeName, statements, function);
+        }
+
 
         @Override
         public String toString() {
@@ -202,11 +268,16 @@ public abstract class Ast {
 
     public static abstract class Statement extends Ast {
 
+        private Statement(Kind kind) {
+            super(kind);
+        }
+
         public static final class Expression extends Statement {
 
             private final Ast.Expression expression;
 
             public Expression(Ast.Expression expression) {
+                super(Kind.EXPRESSION_STATEMENT);
                 this.expression = expression;
             }
 
@@ -220,6 +291,11 @@ public abstract class Ast {
                         expression.equals(((Ast.Statement.Expression) obj).expression);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(expression);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Expression{" +
@@ -241,6 +317,7 @@ public abstract class Ast {
             }
 
             public Declaration(String name, Optional<String> typeName, Optional<Ast.Expression> value) {
+                super(Kind.DECLARATION);
                 this.name = name;
                 this.typeName = typeName;
                 this.value = value;
@@ -268,6 +345,10 @@ public abstract class Ast {
             public void setVariable(Environment.Variable variable) {
                 this.variable = variable;
             }
+
+            Environment.Variable getVariableOrNull() {
+                return variable;
+            }
             
             
             @Override
@@ -279,6 +360,11 @@ public abstract class Ast {
                         Objects.equals(variable, ((Declaration) obj).variable);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(name, typeName, value, variable);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Declaration{" +
@@ -297,6 +383,7 @@ public abstract class Ast {
             private final Ast.Expression value;
 
             public Assignment(Ast.Expression receiver, Ast.Expression value) {
+                super(Kind.ASSIGNMENT);
                 this.receiver = receiver;
                 this.value = value;
             }
@@ -316,6 +403,11 @@ public abstract class Ast {
                         value.equals(((Assignment) obj).value);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(receiver, value);
+            }
+
             @Override
             public final String toString() {
                 return "Ast.Statement.Assignment{" +
@@ -334,6 +426,7 @@ public abstract class Ast {
 
 
             public If(Ast.Expression condition, List<Statement> thenStatements, List<Statement> elseStatements) {
+                super(Kind.IF);
                 this.condition = condition;
                 this.thenStatements = thenStatements;
                 this.elseStatements = elseStatements;
@@ -359,6 +452,11 @@ public abstract class Ast {
                         elseStatements.equals(((If) obj).elseStatements);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(condition, thenStatements, elseStatements);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.If{" +
@@ -376,6 +474,7 @@ public abstract class Ast {
             private final List<Ast.Statement.Case> cases;
 
             public Switch(Ast.Expression condition, List<Ast.Statement.Case> cases) {
+                super(Kind.SWITCH);
                 this.condition = condition;
                 this.cases = cases;
             }
@@ -393,6 +492,11 @@ public abstract class Ast {
                         cases.equals(((Switch) obj).cases);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(condition, cases);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Switch{" +
@@ -409,6 +513,7 @@ public abstract class Ast {
             private final List<Statement> statements;
 
             public Case(Optional<Ast.Expression> value, List<Statement> statements) {
+                super(Kind.CASE);
                 this.value = value;
                 this.statements = statements;
             }
@@ -428,6 +533,11 @@ public abstract class Ast {
                         statements.equals(((Case) obj).statements);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(value, statements);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Case{" +
@@ -444,6 +554,7 @@ public abstract class Ast {
             private final List<Statement> statements;
 
             public While(Ast.Expression condition, List<Statement> statements) {
+                super(Kind.WHILE);
                 this.condition = condition;
                 this.statements = statements;
             }
@@ -463,6 +574,11 @@ public abstract class Ast {
                         statements.equals(((While) obj).statements);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(condition, statements);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.While{" +
@@ -478,6 +594,7 @@ public abstract class Ast {
             private final Ast.Expression value;
 
             public Return(Ast.Expression value) {
+                super(Kind.RETURN);
                 this.value = value;
             }
 
@@ -491,6 +608,11 @@ public abstract class Ast {
                         value.equals(((Return) obj).value);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(value);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Statement.Return{" +
@@ -504,6 +626,10 @@ public abstract class Ast {
 
     public static abstract class Expression extends Ast {
 
+        private Expression(Kind kind) {
+            super(kind);
+        }
+
         public abstract Environment.Type getType();
 
         public static final class Literal extends Ast.Expression {
@@ -512,6 +638,7 @@ public abstract class Ast {
             private Environment.Type type = null;
             
             public Literal(Object literal) {
+                super(Kind.LITERAL);
                 this.literal = literal;
             }
 
@@ -531,6 +658,10 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            Environment.Type getTypeOrNull() {
+                return type;
+            }
+
 
 
             @Override
@@ -540,6 +671,11 @@ public abstract class Ast {
                         Objects.equals(type, ((Literal) obj).type);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(literal, type);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Literal{" +
@@ -556,6 +692,7 @@ public abstract class Ast {
             private Environment.Type type = null;
 
             public Group(Ast.Expression expression) {
+                super(Kind.GROUP);
                 this.expression = expression;
             }
 
@@ -575,6 +712,10 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            Environment.Type getTypeOrNull() {
+                return type;
+            }
+
 
             @Override
             public boolean equals(Object obj) {
@@ -583,6 +724,11 @@ public abstract class Ast {
                         Objects.equals(type, ((Group) obj).type);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(expression, type);
+            }
+
 
             @Override
             public String toString() {
@@ -602,6 +748,7 @@ public abstract class Ast {
             private Environment.Type type = null;
 
             public Binary(String operator, Ast.Expression left, Ast.Expression right) {
+                super(Kind.BINARY);
                 this.operator = operator;
                 this.left = left;
                 this.right = right;
@@ -631,6 +778,10 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            Environment.Type getTypeOrNull() {
+                return type;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Binary &&
@@ -640,6 +791,11 @@ public abstract class Ast {
                         Objects.equals(type, ((Binary) obj).type);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(operator, left, right, type);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Binary{" +
@@ -660,6 +816,7 @@ public abstract class Ast {
             private Environment.Variable variable = null;
 
             public Access(Optional<Ast.Expression> offset, String name) {
+                super(Kind.ACCESS);
                 this.offset = offset;
                 this.name = name;
             }
@@ -683,6 +840,10 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            Environment.Variable getVariableOrNull() {
+                return variable;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
@@ -696,6 +857,11 @@ public abstract class Ast {
                         Objects.equals(variable, ((Access) obj).variable);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(offset, name, variable);
+            }
+
 
             @Override
             public String toString() {
@@ -715,6 +881,7 @@ public abstract class Ast {
             private Environment.Function function = null;
 
             public Function(String name, List<Ast.Expression> arguments) {
+                super(Kind.FUNCTION_CALL);
                 this.name = name;
                 this.arguments = arguments;
             }
@@ -738,6 +905,10 @@ public abstract class Ast {
                 this.function = function;
             }
 
+            Environment.Function getFunctionOrNull() {
+                return function;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getFunction().getReturnType();
@@ -751,6 +922,11 @@ public abstract class Ast {
                         Objects.equals(function, ((Ast.Expression.Function) obj).function);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(name, arguments, function);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.Function{" +
@@ -769,6 +945,7 @@ public abstract class Ast {
 
 
             public PlcList(List<Ast.Expression> values) {
+                super(Kind.LIST);
                 this.values = values;
             }
 
@@ -788,6 +965,10 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            Environment.Type getTypeOrNull() {
+                return type;
+            }
+
             @Override
             public boolean equals(Object obj) {
                 return obj instanceof Ast.Expression.PlcList &&
@@ -795,6 +976,11 @@ public abstract class Ast {
                         Objects.equals(type, ((Ast.Expression.PlcList) obj).type);
             }
 
+            @Override
+            public int hashCode() {
+                return Objects.hash(values, type);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expression.PlcList{" +
@@ -807,45 +993,152 @@ public abstract class Ast {
 
     }
 
+    /**
+     * Passes each node of the tree and its number of children to the action
+     * after all of its children, using an explicit stack instead of recursion
+     * since the {@link Parser} accepts trees nested deeper than the call
+     * stack.
+     */
+    static void walkPostfix(Ast root, ObjIntConsumer<Ast> action) {
+        List<Frame> stack = new ArrayList<>();
+        stack.add(new Frame(root));
+        while (!stack.isEmpty()) {
+            Frame frame = stack.get(stack.size() - 1);
+            if (frame.next < frame.children.size()) {
+                stack.add(new Frame(frame.children.get(frame.next++)));
+            } else {
+                stack.remove(stack.size() - 1);
+                action.accept(frame.ast, frame.children.size());
+            }
+        }
+    }
+
+    /**
+     * A node in {@link #walkPostfix}, and the index of its next child.
+     */
+    private static final class Frame {
+
+        private final Ast ast;
+        private final List<Ast> children;
+        private int next = 0;
+
+        private Frame(Ast ast) {
+            this.ast = ast;
+            this.children = getChildren(ast);
+        }
+
+    }
+
+    /**
+     * Returns the children of the node in the order of its fields.
+     */
+    static List<Ast> getChildren(Ast ast) {
+        List<Ast> children = new ArrayList<>();
+        switch (ast.kind) {
+            case SOURCE:
+                children.addAll(((Source) ast).getGlobals());
+                children.addAll(((Source) ast).getFunctions());
+                break;
+            case GLOBAL:
+                ((Global) ast).getValue().ifPresent(children::add);
+                break;
+            case FUNCTION:
+                children.addAll(((Function) ast).getStatements());
+                break;
+            case EXPRESSION_STATEMENT:
+                children.add(((Statement.Expression) ast).getExpression());
+                break;
+            case DECLARATION:
+                ((Statement.Declaration) ast).getValue().ifPresent(children::add);
+                break;
+            case ASSIGNMENT:
+                children.add(((Statement.Assignment) ast).getReceiver());
+                children.add(((Statement.Assignment) ast).getValue());
+                break;
+            case IF:
+                children.add(((Statement.If) ast).getCondition());
+                children.addAll(((Statement.If) ast).getThenStatements());
+                children.addAll(((Statement.If) ast).getElseStatements());
+                break;
+            case SWITCH:
+                children.add(((Statement.Switch) ast).getCondition());
+                children.addAll(((Statement.Switch) ast).getCases());
+                break;
+            case CASE:
+                ((Statement.Case) ast).getValue().ifPresent(children::add);
+                children.addAll(((Statement.Case) ast).getStatements());
+                break;
+            case WHILE:
+                children.add(((Statement.While) ast).getCondition());
+                children.addAll(((Statement.While) ast).getStatements());
+                break;
+            case RETURN:
+                children.add(((Statement.Return) ast).getValue());
+                break;
+            case LITERAL:
+                break;
+            case GROUP:
+                children.add(((Expression.Group) ast).getExpression());
+                break;
+            case BINARY:
+                children.add(((Expression.Binary) ast).getLeft());
+                children.add(((Expression.Binary) ast).getRight());
+                break;
+            case ACCESS:
+                ((Expression.Access) ast).getOffset().ifPresent(children::add);
+                break;
+            case FUNCTION_CALL:
+                children.addAll(((Expression.Function) ast).getArguments());
+                break;
+            case LIST:
+                children.addAll(((Expression.PlcList) ast).getValues());
+                break;
+            default:
+                throw new AssertionError("Unimplemented AST kind: " + ast.kind + ".");
+        }
+        return children;
+    }
+
     public interface Visitor<T> {
 
         default T visit(Ast ast) {
-            if (ast instanceof Ast.Source) {
-                return visit((Ast.Source) ast);
-            } else if (ast instanceof Ast.Global) {
-                return visit((Ast.Global) ast);
-            } else if (ast instanceof Ast.Function) {
-                return visit((Ast.Function) ast);
-            } else if (ast instanceof Ast.Statement.Expression) {
-                return visit((Ast.Statement.Expression) ast);
-            } else if (ast instanceof Ast.Statement.Declaration) {
-                return visit((Ast.Statement.Declaration) ast);
-            } else if (ast instanceof Ast.Statement.Assignment) {
-                return visit((Ast.Statement.Assignment) ast);
-            } else if (ast instanceof Ast.Statement.If) {
-                return visit((Ast.Statement.If) ast);
-            } else if (ast instanceof Ast.Statement.Switch) {
-                return visit((Ast.Statement.Switch) ast);
-            } else if (ast instanceof Ast.Statement.Case) {
-                return visit((Ast.Statement.Case) ast);
-            } else if (ast instanceof Ast.Statement.While) {
-                return visit((Ast.Statement.While) ast);
-            } else if (ast instanceof Ast.Statement.Return) {
-                return visit((Ast.Statement.Return) ast);
-            } else if (ast instanceof Ast.Expression.Literal) {
-                return visit((Ast.Expression.Literal) ast);
-            } else if (ast instanceof Ast.Expression.Group) {
-                return visit((Ast.Expression.Group) ast);
-            } else if (ast instanceof Ast.Expression.Binary) {
-                return visit((Ast.Expression.Binary) ast);
-            } else if (ast instanceof Ast.Expression.Access) {
-                return visit((Ast.Expression.Access) ast);
-            } else if (ast instanceof Ast.Expression.Function) {
-                return visit((Ast.Expression.Function) ast);
-            } else if (ast instanceof Ast.Expression.PlcList) {
-                return visit((Ast.Expression.PlcList) ast);
-            } else {
-                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
+            switch (ast.kind) {
+                case SOURCE:
+                    return visit((Ast.Source) ast);
+                case GLOBAL:
+                    return visit((Ast.Global) ast);
+                case FUNCTION:
+                    return visit((Ast.Function) ast);
+                case EXPRESSION_STATEMENT:
+                    return visit((Ast.Statement.Expression) ast);
+                case DECLARATION:
+                    return visit((Ast.Statement.Declaration) ast);
+                case ASSIGNMENT:
+                    return visit((Ast.Statement.Assignment) ast);
+                case IF:
+                    return visit((Ast.Statement.If) ast);
+                case SWITCH:
+                    return visit((Ast.Statement.Switch) ast);
+                case CASE:
+                    return visit((Ast.Statement.Case) ast);
+                case WHILE:
+                    return visit((Ast.Statement.While) ast);
+                case RETURN:
+                    return visit((Ast.Statement.Return) ast);
+                case LITERAL:
+                    return visit((Ast.Expression.Literal) ast);
+                case GROUP:
+                    return visit((Ast.Expression.Group) ast);
+                case BINARY:
+                    return visit((Ast.Expression.Binary) ast);
+                case ACCESS:
+                    return visit((Ast.Expression.Access) ast);
+                case FUNCTION_CALL:
+                    return visit((Ast.Expression.Function) ast);
+                case LIST:
+                    return visit((Ast.Expression.PlcList) ast);
+                default:
+                    throw new AssertionError("Unimplemented AST kind: " + ast.kind + ".");
             }
         }
 
@@ -0,0 +1,331 @@
+package plc.project;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads an {@link Ast.Source} serialized by {@link AstWriter}, which is much
+ * faster than lexing and parsing the source again.
+ *
+ * Types are resolved by name with {@link Environment#getType(String)}.
+ * Variables are recreated with a {@code NIL} value, and functions with their
+ * name and signature but without an implementation, since these are set by the
+ * interpreter and not part of the tree. They are shared by all nodes which
+ * referenced the same variable or function when written.
+ */
+public final class AstReader {
+
+    private static final Ast.Kind[] KINDS = Ast.Kind.values();
+
+    private final ByteBuffer buffer;
+    /**
+     * The nodes read whose parent has not been read yet.
+     */
+    private final List<Ast> stack = new ArrayList<>();
+    /**
+     * The index in the stack of the next child of the node being read.
+     */
+    private int next;
+    private String[] strings;
+    private Environment.Variable[] variables;
+    private Environment.Function[] functions;
+
+    private AstReader(ByteBuffer buffer) {
+        this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    public static Ast.Source read(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Reads a source from the remaining bytes of the buffer, which may be a
+     * memory-mapped file. The position of the buffer is not changed.
+     */
+    public static Ast.Source read(ByteBuffer buffer) {
+        AstReader reader = new AstReader(buffer);
+        try {
+            return reader.readSource();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated AST.", e);
+        }
+    }
+
+    /**
+     * Reads a source from a file written by {@link AstWriter#write(Ast.Source,
+     * Path)}, memory-mapping the file instead of copying it onto the heap.
+     */
+    public static Ast.Source read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    private Ast.Source readSource() {
+        if (buffer.remaining() < Integer.BYTES || buffer.getInt() != AstWriter.MAGIC) {
+            throw new IllegalArgumentException("Not a serialized AST.");
+        }
+        int version = readUnsigned();
+        if (version != AstWriter.VERSION) {
+            throw new IllegalArgumentException("Unsupported AST version " + version + ".");
+        }
+        strings = new String[readUnsigned()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[readUnsigned()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        variables = new Environment.Variable[readUnsigned()];
+        for (int i = 0; i < variables.length; i++) {
+            String name = readString();
+            String jvmName = readString();
+            Environment.Type type = readType();
+            variables[i] = new Environment.Variable(name, jvmName, type, buffer.get() != 0, Environment.NIL);
+        }
+        functions = new Environment.Function[readUnsigned()];
+        for (int i = 0; i < functions.length; i++) {
+            String name = readString();
+            String jvmName = readString();
+            List<Environment.Type> parameterTypes = new ArrayList<>();
+            for (int j = readUnsigned(); j > 0; j--) {
+                parameterTypes.add(readType());
+            }
+            functions[i] = new Environment.Function(name, jvmName, parameterTypes, readType(), arguments -> {
+                throw new UnsupportedOperationException("Function " + name + " was deserialized without an implementation.");
+            });
+        }
+        while (buffer.hasRemaining()) {
+            stack.add(readAst());
+        }
+        if (stack.size() != 1 || !(stack.get(0) instanceof Ast.Source)) {
+            throw new IllegalArgumentException("Expected a serialized source.");
+        }
+        return (Ast.Source) stack.get(0);
+    }
+
+    /**
+     * Reads a node, taking its children from the end of the stack.
+     */
+    private Ast readAst() {
+        int tag = buffer.get();
+        if (tag < 0 || tag >= KINDS.length) {
+            throw new IllegalArgumentException("Invalid AST tag " + tag + ".");
+        }
+        int children = readUnsigned();
+        int end = stack.size();
+        if (children > end) {
+            throw new IllegalArgumentException("Invalid AST child count " + children + ".");
+        }
+        next = end - children;
+        Ast ast = readNode(KINDS[tag]);
+        if (next != end) {
+            throw new IllegalArgumentException("Invalid AST child count " + children + ".");
+        }
+        stack.subList(end - children, end).clear();
+        return ast;
+    }
+
+    private Ast readNode(Ast.Kind kind) {
+        switch (kind) {
+            case SOURCE:
+                return new Ast.Source(readList(), readList());
+            case GLOBAL: {
+                Ast.Global global = new Ast.Global(readString(), readString(), buffer.get() != 0, readOptional());
+                global.setVariable(readVariable());
+                return global;
+            }
+            case FUNCTION: {
+                Ast.Function function = new Ast.Function(readString(), readStrings(), readStrings(), Optional.ofNullable(readString()), readList());
+                function.setFunction(readFunction());
+                return function;
+            }
+            case EXPRESSION_STATEMENT:
+                return new Ast.Statement.Expression(readExpression());
+            case DECLARATION: {
+                Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(readString(), Optional.ofNullable(readString()), readOptional());
+                declaration.setVariable(readVariable());
+                return declaration;
+            }
+            case ASSIGNMENT:
+                return new Ast.Statement.Assignment(readExpression(), readExpression());
+            case IF:
+                return new Ast.Statement.If(readExpression(), readList(), readList());
+            case SWITCH:
+                return new Ast.Statement.Switch(readExpression(), readList());
+            case CASE:
+                return new Ast.Statement.Case(readOptional(), readList());
+            case WHILE:
+                return new Ast.Statement.While(readExpression(), readList());
+            case RETURN:
+                return new Ast.Statement.Return(readExpression());
+            case LITERAL: {
+                Ast.Expression.Literal literal = new Ast.Expression.Literal(readLiteral());
+                literal.setType(readType());
+                return literal;
+            }
+            case GROUP: {
+                Ast.Expression.Group group = new Ast.Expression.Group(readExpression());
+                group.setType(readType());
+                return group;
+            }
+            case BINARY: {
+                Ast.Expression.Binary binary = new Ast.Expression.Binary(readString(), readExpression(), readExpression());
+                binary.setType(readType());
+                return binary;
+            }
+            case ACCESS: {
+                Ast.Expression.Access access = new Ast.Expression.Access(readOptional(), readString());
+                access.setVariable(readVariable());
+                return access;
+            }
+            case FUNCTION_CALL: {
+                Ast.Expression.Function function = new Ast.Expression.Function(readString(), readList());
+                function.setFunction(readFunction());
+                return function;
+            }
+            case LIST: {
+                Ast.Expression.PlcList list = new Ast.Expression.PlcList(readList());
+                list.setType(readType());
+                return list;
+            }
+            default:
+                throw new AssertionError("Unexpected kind " + kind + ".");
+        }
+    }
+
+    private Object readLiteral() {
+        int tag = buffer.get();
+        switch (tag) {
+            case AstWriter.NIL:
+                return null;
+            case AstWriter.FALSE:
+                return Boolean.FALSE;
+            case AstWriter.TRUE:
+                return Boolean.TRUE;
+            case AstWriter.INTEGER:
+                return BigInteger.valueOf(readSigned());
+            case AstWriter.BIG_INTEGER:
+                return new BigInteger(readBytes());
+            case AstWriter.DECIMAL: {
+                int scale = (int) readSigned();
+                return new BigDecimal(new BigInteger(readBytes()), scale);
+            }
+            case AstWriter.CHARACTER:
+                return (char) readUnsigned();
+            case AstWriter.STRING:
+                return readString();
+            default:
+                throw new IllegalArgumentException("Invalid literal tag " + tag + ".");
+        }
+    }
+
+    private Ast.Expression readExpression() {
+        Ast ast = readChild();
+        if (!(ast instanceof Ast.Expression)) {
+            throw new IllegalArgumentException("Expected an expression, received " + ast.getClass().getSimpleName() + ".");
+        }
+        return (Ast.Expression) ast;
+    }
+
+    /**
+     * Reads a list of nodes, which are cast to the element type expected by
+     * the constructor they are passed to.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Ast> List<T> readList() {
+        int size = readUnsigned();
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add((T) readChild());
+        }
+        return list;
+    }
+
+    /**
+     * Returns the next child of the node being read, which is always read
+     * before the node.
+     */
+    private Ast readChild() {
+        if (next == stack.size()) {
+            throw new IllegalArgumentException("Missing AST child.");
+        }
+        return stack.get(next++);
+    }
+
+    private <T extends Ast.Expression> Optional<T> readOptional() {
+        @SuppressWarnings("unchecked")
+        Optional<T> optional = buffer.get() != 0 ? Optional.of((T) readExpression()) : Optional.empty();
+        return optional;
+    }
+
+    private List<String> readStrings() {
+        int size = readUnsigned();
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readString());
+        }
+        return list;
+    }
+
+    private String readString() {
+        int index = readUnsigned();
+        return index == 0 ? null : strings[index - 1];
+    }
+
+    private Environment.Type readType() {
+        String name = readString();
+        return name == null ? null : Environment.getType(name);
+    }
+
+    private Environment.Variable readVariable() {
+        int index = readUnsigned();
+        return index == 0 ? null : variables[index - 1];
+    }
+
+    private Environment.Function readFunction() {
+        int index = readUnsigned();
+        return index == 0 ? null : functions[index - 1];
+    }
+
+    private byte[] readBytes() {
+        byte[] bytes = new byte[readUnsigned()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private int readUnsigned() {
+        long value = readUnsignedLong();
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid AST count " + value + ".");
+        }
+        return (int) value;
+    }
+
+    private long readSigned() {
+        long value = readUnsignedLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private long readUnsignedLong() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+}
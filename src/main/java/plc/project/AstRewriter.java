@@ -0,0 +1,238 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * A visitor which rebuilds a tree bottom-up, for passes which replace some of
+ * its nodes. Each method visits the children of the node and returns the node
+ * itself if they are all unchanged, otherwise a copy with the new children and
+ * the same types, variables and functions. Subclasses override the methods
+ * for the nodes they replace, usually calling the method here first so the
+ * children have already been rewritten.
+ */
+public abstract class AstRewriter implements Ast.Visitor<Ast> {
+
+    @Override
+    public Ast visit(Ast.Source ast) {
+        List<Ast.Global> globals = visitAll(ast.getGlobals());
+        List<Ast.Function> functions = visitAll(ast.getFunctions());
+        if (globals == ast.getGlobals() && functions == ast.getFunctions()) {
+            return ast;
+        }
+        return new Ast.Source(globals, functions);
+    }
+
+    @Override
+    public Ast visit(Ast.Global ast) {
+        Optional<Ast.Expression> value = visitOptional(ast.getValue());
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Global global = new Ast.Global(ast.getName(), ast.getTypeName(), ast.getMutable(), value);
+        global.setVariable(ast.getVariableOrNull());
+        return global;
+    }
+
+    @Override
+    public Ast visit(Ast.Function ast) {
+        List<Ast.Statement> statements = visitStatements(ast.getStatements());
+        if (statements == ast.getStatements()) {
+            return ast;
+        }
+        Ast.Function function = new Ast.Function(ast.getName(), ast.getParameters(), ast.getParameterTypeNames(), ast.getReturnTypeName(), statements);
+        function.setFunction(ast.getFunctionOrNull());
+        return function;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Expression ast) {
+        Ast.Expression expression = visitExpression(ast.getExpression());
+        return expression == ast.getExpression() ? ast : new Ast.Statement.Expression(expression);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Declaration ast) {
+        Optional<Ast.Expression> value = visitOptional(ast.getValue());
+        if (value == ast.getValue()) {
+            return ast;
+        }
+        Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(ast.getName(), ast.getTypeName(), value);
+        declaration.setVariable(ast.getVariableOrNull());
+        return declaration;
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Assignment ast) {
+        Ast.Expression receiver = visitExpression(ast.getReceiver());
+        Ast.Expression value = visitExpression(ast.getValue());
+        if (receiver == ast.getReceiver() && value == ast.getValue()) {
+            return ast;
+        }
+        return new Ast.Statement.Assignment(receiver, value);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.If ast) {
+        Ast.Expression condition = visitExpression(ast.getCondition());
+        List<Ast.Statement> thenStatements = visitStatements(ast.getThenStatements());
+        List<Ast.Statement> elseStatements = visitStatements(ast.getElseStatements());
+        if (condition == ast.getCondition() && thenStatements == ast.getThenStatements() && elseStatements == ast.getElseStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.If(condition, thenStatements, elseStatements);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Switch ast) {
+        Ast.Expression condition = visitExpression(ast.getCondition());
+        List<Ast.Statement.Case> cases = visitAll(ast.getCases());
+        if (condition == ast.getCondition() && cases == ast.getCases()) {
+            return ast;
+        }
+        return new Ast.Statement.Switch(condition, cases);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Case ast) {
+        Optional<Ast.Expression> value = visitOptional(ast.getValue());
+        List<Ast.Statement> statements = visitStatements(ast.getStatements());
+        if (value == ast.getValue() && statements == ast.getStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.Case(value, statements);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.While ast) {
+        Ast.Expression condition = visitExpression(ast.getCondition());
+        List<Ast.Statement> statements = visitStatements(ast.getStatements());
+        if (condition == ast.getCondition() && statements == ast.getStatements()) {
+            return ast;
+        }
+        return new Ast.Statement.While(condition, statements);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Return ast) {
+        Ast.Expression value = visitExpression(ast.getValue());
+        return value == ast.getValue() ? ast : new Ast.Statement.Return(value);
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Literal ast) {
+        return ast;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression expression = visitExpression(ast.getExpression());
+        if (expression == ast.getExpression()) {
+            return ast;
+        }
+        Ast.Expression.Group group = new Ast.Expression.Group(expression);
+        group.setType(ast.getTypeOrNull());
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression left = visitExpression(ast.getLeft());
+        Ast.Expression right = visitExpression(ast.getRight());
+        if (left == ast.getLeft() && right == ast.getRight()) {
+            return ast;
+        }
+        Ast.Expression.Binary binary = new Ast.Expression.Binary(ast.getOperator(), left, right);
+        binary.setType(ast.getTypeOrNull());
+        return binary;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        Optional<Ast.Expression> offset = visitOptional(ast.getOffset());
+        if (offset == ast.getOffset()) {
+            return ast;
+        }
+        Ast.Expression.Access access = new Ast.Expression.Access(offset, ast.getName());
+        access.setVariable(ast.getVariableOrNull());
+        return access;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Function ast) {
+        List<Ast.Expression> arguments = visitExpressions(ast.getArguments());
+        if (arguments == ast.getArguments()) {
+            return ast;
+        }
+        Ast.Expression.Function function = new Ast.Expression.Function(ast.getName(), arguments);
+        function.setFunction(ast.getFunctionOrNull());
+        return function;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.PlcList ast) {
+        List<Ast.Expression> values = visitExpressions(ast.getValues());
+        if (values == ast.getValues()) {
+            return ast;
+        }
+        Ast.Expression.PlcList list = new Ast.Expression.PlcList(values);
+        list.setType(ast.getTypeOrNull());
+        return list;
+    }
+
+    /**
+     * Rewrites an expression. Every expression of the tree is rewritten
+     * through this method, so subclasses may override it to replace
+     * expressions of any kind.
+     */
+    protected Ast.Expression visitExpression(Ast.Expression ast) {
+        return (Ast.Expression) visit(ast);
+    }
+
+    protected List<Ast.Expression> visitExpressions(List<Ast.Expression> asts) {
+        return rewrite(asts, this::visitExpression);
+    }
+
+    /**
+     * Rewrites a block of statements. Subclasses may override this to remove
+     * statements or replace one with several.
+     */
+    protected List<Ast.Statement> visitStatements(List<Ast.Statement> statements) {
+        return visitAll(statements);
+    }
+
+    /**
+     * Rewrites each node of the list, returning the same list if no node
+     * changed. Nodes are cast to the element type of the list, so rewriting
+     * must not change the class of a node in a list of statements or cases.
+     */
+    @SuppressWarnings("unchecked")
+    protected <T extends Ast> List<T> visitAll(List<T> asts) {
+        return rewrite(asts, ast -> (T) visit(ast));
+    }
+
+    protected Optional<Ast.Expression> visitOptional(Optional<Ast.Expression> ast) {
+        if (!ast.isPresent()) {
+            return ast;
+        }
+        Ast.Expression expression = visitExpression(ast.get());
+        return expression == ast.get() ? ast : Optional.of(expression);
+    }
+
+    private static <T extends Ast> List<T> rewrite(List<T> asts, UnaryOperator<T> rewriter) {
+        List<T> rewritten = null;
+        for (int i = 0; i < asts.size(); i++) {
+            T ast = rewriter.apply(asts.get(i));
+            if (rewritten == null && ast != asts.get(i)) {
+                rewritten = new ArrayList<>(asts.subList(0, i));
+            }
+            if (rewritten != null) {
+                rewritten.add(ast);
+            }
+        }
+        return rewritten != null ? rewritten : asts;
+    }
+
+}
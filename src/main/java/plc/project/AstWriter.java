@@ -0,0 +1,415 @@
+package plc.project;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Serializes an {@link Ast.Source} into the compact binary format read by
+ * {@link AstReader}, including the types, variables and functions set by the
+ * {@link Analyzer} if the tree has been analyzed.
+ *
+ * The format is a header, followed by tables of the strings, variables and
+ * functions referenced by the tree, and finally the nodes of the tree in
+ * postfix order, so each node follows its children. Each node is the ordinal
+ * of its {@link Ast.Kind} as a byte, followed by its number of children and
+ * its fields, where lists and optional children are their sizes, strings,
+ * types, variables and functions are indexes into the tables, and all counts
+ * and indexes are unsigned variable-length integers. The tree is written and
+ * read with an explicit stack instead of recursion, so any tree the
+ * {@link Parser} accepts can be serialized however deeply it is nested.
+ * Variables and
+ * functions are written once however many nodes reference them, so nodes
+ * which shared a variable also share it after reading.
+ */
+public final class AstWriter implements Ast.Visitor<Void> {
+
+    static final int MAGIC = 0x504C4341;
+    static final int VERSION = 3;
+
+    static final int NIL = 0;
+    static final int FALSE = 1;
+    static final int TRUE = 2;
+    static final int INTEGER = 3;
+    static final int BIG_INTEGER = 4;
+    static final int DECIMAL = 5;
+    static final int CHARACTER = 6;
+    static final int STRING = 7;
+
+    private final Output nodes = new Output();
+    /**
+     * The number of children of the node being written.
+     */
+    private int childCount;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final List<String> stringList = new ArrayList<>();
+    private final Map<Environment.Variable, Integer> variables = new IdentityHashMap<>();
+    private final List<Environment.Variable> variableList = new ArrayList<>();
+    private final Map<Environment.Function, Integer> functions = new IdentityHashMap<>();
+    private final List<Environment.Function> functionList = new ArrayList<>();
+
+    private AstWriter() {}
+
+    /**
+     * Returns the serialized form of the source.
+     */
+    public static byte[] write(Ast.Source source) {
+        AstWriter writer = new AstWriter();
+        Ast.walkPostfix(source, (ast, children) -> {
+            writer.childCount = children;
+            writer.visit(ast);
+        });
+        return writer.toByteArray();
+    }
+
+    /**
+     * Writes the serialized form of the source to the file, which can then be
+     * read with {@link AstReader#read(Path)}.
+     */
+    public static void write(Ast.Source source, Path path) throws IOException {
+        Files.write(path, write(source));
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        writeKind(ast);
+        writeList(ast.getGlobals());
+        writeList(ast.getFunctions());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Global ast) {
+        writeKind(ast);
+        writeString(ast.getName());
+        writeString(ast.getTypeName());
+        nodes.write(ast.getMutable() ? 1 : 0);
+        writeOptional(ast.getValue());
+        writeVariable(ast.getVariableOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Function ast) {
+        writeKind(ast);
+        writeString(ast.getName());
+        writeStrings(ast.getParameters());
+        writeStrings(ast.getParameterTypeNames());
+        writeString(ast.getReturnTypeName().orElse(null));
+        writeList(ast.getStatements());
+        writeFunction(ast.getFunctionOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Expression ast) {
+        writeKind(ast);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Declaration ast) {
+        writeKind(ast);
+        writeString(ast.getName());
+        writeString(ast.getTypeName().orElse(null));
+        writeOptional(ast.getValue());
+        writeVariable(ast.getVariableOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Assignment ast) {
+        writeKind(ast);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.If ast) {
+        writeKind(ast);
+        writeList(ast.getThenStatements());
+        writeList(ast.getElseStatements());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Switch ast) {
+        writeKind(ast);
+        writeList(ast.getCases());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Case ast) {
+        writeKind(ast);
+        writeOptional(ast.getValue());
+        writeList(ast.getStatements());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.While ast) {
+        writeKind(ast);
+        writeList(ast.getStatements());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Statement.Return ast) {
+        writeKind(ast);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Literal ast) {
+        writeKind(ast);
+        Object literal = ast.getLiteral();
+        if (literal == null) {
+            nodes.write(NIL);
+        } else if (literal instanceof Boolean) {
+            nodes.write((Boolean) literal ? TRUE : FALSE);
+        } else if (literal instanceof BigInteger && ((BigInteger) literal).bitLength() < Long.SIZE) {
+            nodes.write(INTEGER);
+            nodes.writeSigned(((BigInteger) literal).longValue());
+        } else if (literal instanceof BigInteger) {
+            nodes.write(BIG_INTEGER);
+            nodes.writeBytes(((BigInteger) literal).toByteArray());
+        } else if (literal instanceof BigDecimal) {
+            nodes.write(DECIMAL);
+            nodes.writeSigned(((BigDecimal) literal).scale());
+            nodes.writeBytes(((BigDecimal) literal).unscaledValue().toByteArray());
+        } else if (literal instanceof Character) {
+            nodes.write(CHARACTER);
+            nodes.writeUnsigned((Character) literal);
+        } else if (literal instanceof String) {
+            nodes.write(STRING);
+            writeString((String) literal);
+        } else {
+            throw new IllegalArgumentException("Unsupported literal " + literal.getClass().getName() + ".");
+        }
+        writeType(ast.getTypeOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Group ast) {
+        writeKind(ast);
+        writeType(ast.getTypeOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Binary ast) {
+        writeKind(ast);
+        writeString(ast.getOperator());
+        writeType(ast.getTypeOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Access ast) {
+        writeKind(ast);
+        writeOptional(ast.getOffset());
+        writeString(ast.getName());
+        writeVariable(ast.getVariableOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.Function ast) {
+        writeKind(ast);
+        writeString(ast.getName());
+        writeList(ast.getArguments());
+        writeFunction(ast.getFunctionOrNull());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expression.PlcList ast) {
+        writeKind(ast);
+        writeList(ast.getValues());
+        writeType(ast.getTypeOrNull());
+        return null;
+    }
+
+    private void writeKind(Ast ast) {
+        nodes.write(ast.getKind().ordinal());
+        nodes.writeUnsigned(childCount);
+    }
+
+    /**
+     * Writes the size of a list of children, which precede the node.
+     */
+    private void writeList(List<? extends Ast> asts) {
+        nodes.writeUnsigned(asts.size());
+    }
+
+    private void writeOptional(Optional<? extends Ast> ast) {
+        nodes.write(ast.isPresent() ? 1 : 0);
+    }
+
+    private void writeStrings(List<String> strings) {
+        nodes.writeUnsigned(strings.size());
+        for (String string : strings) {
+            writeString(string);
+        }
+    }
+
+    private void writeString(String string) {
+        nodes.writeUnsigned(string(string));
+    }
+
+    private void writeType(Environment.Type type) {
+        nodes.writeUnsigned(type(type));
+    }
+
+    private void writeVariable(Environment.Variable variable) {
+        if (variable == null) {
+            nodes.writeUnsigned(0);
+        } else {
+            Integer index = variables.get(variable);
+            if (index == null) {
+                index = variables.size();
+                variables.put(variable, index);
+                variableList.add(variable);
+            }
+            nodes.writeUnsigned(index + 1);
+        }
+    }
+
+    private void writeFunction(Environment.Function function) {
+        if (function == null) {
+            nodes.writeUnsigned(0);
+        } else {
+            Integer index = functions.get(function);
+            if (index == null) {
+                index = functions.size();
+                functions.put(function, index);
+                functionList.add(function);
+            }
+            nodes.writeUnsigned(index + 1);
+        }
+    }
+
+    /**
+     * Returns the index of the string in the string table plus one, or zero
+     * for {@code null}.
+     */
+    private int string(String string) {
+        if (string == null) {
+            return 0;
+        }
+        Integer index = strings.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.put(string, index);
+            stringList.add(string);
+        }
+        return index + 1;
+    }
+
+    private int type(Environment.Type type) {
+        return type == null ? 0 : string(type.getName());
+    }
+
+    /**
+     * Assembles the header and tables, which are only complete once all nodes
+     * have been written, followed by the nodes.
+     */
+    private byte[] toByteArray() {
+        Output tables = new Output();
+        tables.writeUnsigned(variableList.size());
+        for (Environment.Variable variable : variableList) {
+            tables.writeUnsigned(string(variable.getName()));
+            tables.writeUnsigned(string(variable.getJvmName()));
+            tables.writeUnsigned(type(variable.getType()));
+            tables.write(variable.getMutable() ? 1 : 0);
+        }
+        tables.writeUnsigned(functionList.size());
+        for (Environment.Function function : functionList) {
+            tables.writeUnsigned(string(function.getName()));
+            tables.writeUnsigned(string(function.getJvmName()));
+            tables.writeUnsigned(function.getParameterTypes().size());
+            for (Environment.Type type : function.getParameterTypes()) {
+                tables.writeUnsigned(type(type));
+            }
+            tables.writeUnsigned(type(function.getReturnType()));
+        }
+        Output output = new Output();
+        output.writeInt(MAGIC);
+        output.writeUnsigned(VERSION);
+        output.writeUnsigned(stringList.size());
+        for (String string : stringList) {
+            output.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        }
+        output.writeAll(tables);
+        output.writeAll(nodes);
+        return output.toByteArray();
+    }
+
+    /**
+     * A growable byte array with variable-length integer encodings.
+     */
+    static final class Output {
+
+        private byte[] bytes = new byte[256];
+        private int size = 0;
+
+        void write(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length << 1);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        void writeUnsigned(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSigned(long value) {
+            writeUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                write(value >>> shift);
+            }
+        }
+
+        void writeBytes(byte[] value) {
+            writeUnsigned(value.length);
+            writeAll(value, value.length);
+        }
+
+        void writeAll(Output output) {
+            writeAll(output.bytes, output.size);
+        }
+
+        private void writeAll(byte[] value, int length) {
+            if (size + length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length << 1, size + length));
+            }
+            System.arraycopy(value, 0, bytes, size, length);
+            size += length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+    }
+
+}
@@ -0,0 +1,288 @@
+package plc.project;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the output of each compiler phase in a directory, so compiling an
+ * unchanged source again (in this or another process) reads the cached
+ * output instead of repeating the phase.
+ *
+ * Entries are named by the SHA-256 hash of the compiler version and the
+ * source, followed by the phase: the tokens from the {@link Lexer}, the
+ * {@link Ast.Source} from the {@link Parser} and after the {@link Analyzer}
+ * (both written by {@link AstWriter}), and the Java source from the
+ * {@link Generator}. Each phase starts from the cached output of the previous
+ * phase if there is one.
+ *
+ * Entries are written to a temporary file which is then atomically moved into
+ * place, so other processes only ever see complete entries. Reading an entry
+ * updates its modification time, and after each write the least recently used
+ * entries are deleted until the directory is within its size limit. Temporary
+ * files count toward the limit, and those older than an hour, which were left
+ * by a process that died while writing, are deleted. Entries which cannot be
+ * read are treated as missing and written again.
+ */
+public final class CompilationCache {
+
+    /**
+     * Identifies the compiler, so entries are not shared between versions
+     * which may produce different output. Change this whenever the output of
+     * any phase changes.
+     */
+    static final String VERSION = "plc-1/ast-" + AstWriter.VERSION;
+
+    private static final String TOKENS = ".tokens";
+    private static final String PARSED = ".parsed";
+    private static final String ANALYZED = ".analyzed";
+    private static final String GENERATED = ".java";
+    private static final String TEMPORARY = ".tmp";
+    /**
+     * The age after which a temporary file is assumed to be abandoned, which
+     * is far longer than writing any entry takes.
+     */
+    private static final long TEMPORARY_AGE = TimeUnit.HOURS.toMillis(1);
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+
+    private final Path directory;
+    private final long maximumSize;
+
+    /**
+     * Creates a cache in the directory, creating it if needed, which deletes
+     * entries once their total size exceeds {@code maximumSize} bytes.
+     */
+    public CompilationCache(Path directory, long maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException("Maximum size must not be negative.");
+        }
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.directory = directory;
+        this.maximumSize = maximumSize;
+    }
+
+    public List<Token> lex(String source) {
+        Path path = entry(source, TOKENS);
+        byte[] bytes = read(path);
+        if (bytes != null) {
+            try {
+                return readTokens(bytes);
+            } catch (IOException | RuntimeException e) {
+                // corrupt entries are replaced below
+            }
+        }
+        List<Token> tokens = new Lexer(source).lex();
+        write(path, writeTokens(tokens));
+        return tokens;
+    }
+
+    public Ast.Source parse(String source) {
+        Path path = entry(source, PARSED);
+        Ast.Source ast = readAst(path);
+        if (ast == null) {
+            ast = new Parser(lex(source)).parseSource();
+            write(path, AstWriter.write(ast));
+        }
+        return ast;
+    }
+
+    /**
+     * Returns the analyzed source, analyzed with a new {@link Analyzer} in an
+     * empty scope.
+     */
+    public Ast.Source analyze(String source) {
+        Path path = entry(source, ANALYZED);
+        Ast.Source ast = readAst(path);
+        if (ast == null) {
+            ast = parse(source);
+            new Analyzer(new Scope(null)).visit(ast);
+            write(path, AstWriter.write(ast));
+        }
+        return ast;
+    }
+
+    public String generate(String source) {
+        Path path = entry(source, GENERATED);
+        byte[] bytes = read(path);
+        if (bytes != null) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(analyze(source));
+        String generated = writer.toString();
+        write(path, generated.getBytes(StandardCharsets.UTF_8));
+        return generated;
+    }
+
+    /**
+     * Returns the path of the entry for the phase of the source.
+     */
+    Path entry(String source, String phase) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(VERSION.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest.digest()) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return directory.resolve(name.append(phase).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required to be supported.", e);
+        }
+    }
+
+    private Ast.Source readAst(Path path) {
+        byte[] bytes = read(path);
+        if (bytes != null) {
+            try {
+                return AstReader.read(bytes);
+            } catch (RuntimeException e) {
+                // corrupt entries are replaced by the caller
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the contents of the entry and marks it as recently used, or
+     * {@code null} if there is no such entry.
+     */
+    private byte[] read(Path path) {
+        try {
+            byte[] bytes = Files.readAllBytes(path);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return bytes;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void write(Path path, byte[] bytes) {
+        try {
+            Path temporary = Files.createTempFile(directory, path.getFileName().toString(), TEMPORARY);
+            try {
+                Files.write(temporary, bytes);
+                try {
+                    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            evict();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Deletes abandoned temporary files, then the least recently used entries
+     * until the total size of the entries and the remaining temporary files is
+     * at most the maximum size. Files deleted concurrently by other processes
+     * are ignored.
+     */
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        List<BasicFileAttributes> attributes = new ArrayList<>();
+        long size = 0;
+        long abandoned = System.currentTimeMillis() - TEMPORARY_AGE;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                try {
+                    BasicFileAttributes attribute = Files.readAttributes(entry, BasicFileAttributes.class);
+                    if (!entry.getFileName().toString().endsWith(TEMPORARY)) {
+                        entries.add(entry);
+                        attributes.add(attribute);
+                    } else if (attribute.lastModifiedTime().toMillis() < abandoned) {
+                        Files.deleteIfExists(entry);
+                        continue;
+                    }
+                    size += attribute.size();
+                } catch (NoSuchFileException e) {
+                    // deleted concurrently
+                }
+            }
+        }
+        if (size <= maximumSize) {
+            return;
+        }
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+        for (int i : order) {
+            if (size <= maximumSize) {
+                break;
+            }
+            Files.deleteIfExists(entries.get(i));
+            size -= attributes.get(i).size();
+        }
+    }
+
+    private static byte[] writeTokens(List<Token> tokens) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(tokens.size());
+            for (Token token : tokens) {
+                byte[] literal = token.getLiteral().getBytes(StandardCharsets.UTF_8);
+                output.writeByte(token.getType().ordinal());
+                output.writeInt(token.getIndex());
+                output.writeInt(literal.length);
+                output.write(literal);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Token> readTokens(byte[] bytes) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        int size = input.readInt();
+        List<Token> tokens = new ArrayList<>(Math.min(size, bytes.length));
+        for (int i = 0; i < size; i++) {
+            Token.Type type = TYPES[input.readUnsignedByte()];
+            int index = input.readInt();
+            int length = input.readInt();
+            if (length < 0 || length > input.available()) {
+                throw new IOException("Invalid literal length " + length + ".");
+            }
+            byte[] literal = new byte[length];
+            input.readFully(literal);
+            tokens.add(new Token(type, new String(literal, StandardCharsets.UTF_8), index));
+        }
+        return tokens;
+    }
+
+}
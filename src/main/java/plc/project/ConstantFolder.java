@@ -0,0 +1,94 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Folds constant expressions of an analyzed tree into literals, so they are
+ * not recomputed by the {@link Interpreter} on every evaluation or emitted
+ * verbatim by the {@link Generator}. A binary expression whose operands are
+ * literals is evaluated by an {@link Interpreter}, so the folded literal has
+ * exactly the value the interpreter would compute, and a group of a literal is
+ * replaced by the literal. The folded literal has the type the
+ * {@link Analyzer} gave the expression.
+ *
+ * An expression is left unchanged if evaluating it fails, so the error still
+ * occurs at runtime, or if its value is an integer outside the range of an
+ * {@code Integer} literal. Equality is never folded since the interpreter
+ * compares the objects of its operands and not their values. Expressions with
+ * a decimal operand are never folded either, since the interpreter computes
+ * decimals exactly with {@link BigDecimal} (rounding division to the scale of
+ * the dividend) while the generated Java computes them as {@code double}s, so
+ * a folded value such as {@code 1.0 / 3.0} would change the generated code.
+ */
+public final class ConstantFolder extends AstRewriter {
+
+    private final Interpreter interpreter = new Interpreter(null);
+
+    public Ast.Source fold(Ast.Source source) {
+        return (Ast.Source) visit(source);
+    }
+
+    public Ast.Expression fold(Ast.Expression expression) {
+        return visitExpression(expression);
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression.Group group = (Ast.Expression.Group) super.visit(ast);
+        if (group.getExpression() instanceof Ast.Expression.Literal) {
+            return literal(((Ast.Expression.Literal) group.getExpression()).getLiteral(), group.getTypeOrNull(), group);
+        }
+        return group;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) super.visit(ast);
+        if (!(binary.getLeft() instanceof Ast.Expression.Literal) || !(binary.getRight() instanceof Ast.Expression.Literal)
+                || binary.getOperator().equals("==") || binary.getOperator().equals("!=")
+                || isDecimal(binary.getLeft()) || isDecimal(binary.getRight())) {
+            return binary;
+        }
+        Object value;
+        try {
+            value = interpreter.visit(binary).getValue();
+        } catch (RuntimeException e) {
+            return binary;
+        }
+        return literal(value, binary.getTypeOrNull(), binary);
+    }
+
+    /**
+     * Returns a literal of the value with the given type, or the expression
+     * itself if the value is not a valid literal of that type.
+     */
+    private static Ast.Expression literal(Object value, Environment.Type type, Ast.Expression expression) {
+        if (type == null || !isLiteral(value, type)) {
+            return expression;
+        }
+        Ast.Expression.Literal literal = new Ast.Expression.Literal(value);
+        literal.setType(type);
+        return literal;
+    }
+
+    private static boolean isDecimal(Ast.Expression expression) {
+        return ((Ast.Expression.Literal) expression).getLiteral() instanceof BigDecimal;
+    }
+
+    private static boolean isLiteral(Object value, Environment.Type type) {
+        if (type == Environment.Type.BOOLEAN) {
+            return value instanceof Boolean;
+        } else if (type == Environment.Type.INTEGER) {
+            return value instanceof BigInteger && ((BigInteger) value).bitLength() < Integer.SIZE;
+        } else if (type == Environment.Type.DECIMAL) {
+            return value instanceof BigDecimal;
+        } else if (type == Environment.Type.CHARACTER) {
+            return value instanceof Character;
+        } else if (type == Environment.Type.STRING) {
+            return value instanceof String;
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,184 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Removes statements of an analyzed tree which are never executed, so the
+ * {@link Interpreter} does not evaluate them and the {@link Generator} does
+ * not emit them. In each block of statements,
+ *
+ * <ul>
+ *     <li>statements after one which never completes (a {@code RETURN}, a
+ *     {@code WHILE TRUE}, or an {@code IF} or {@code SWITCH} whose every
+ *     branch never completes) are removed,</li>
+ *     <li>an {@code IF} with a literal condition is replaced by the branch it
+ *     takes, and a {@code WHILE FALSE} is removed,</li>
+ *     <li>{@code SWITCH} cases which can never match are removed, which are
+ *     those with the same literal value as an earlier case and, if the
+ *     condition is a literal, those after the case it matches or with a
+ *     different literal value. A switch whose condition always reaches the
+ *     default case is replaced by its statements.</li>
+ * </ul>
+ *
+ * Since branches are evaluated in a new scope, a branch which declares a
+ * variable is kept in its statement instead of replacing it. Conditions are
+ * only recognized once they are literals, so this should run after the
+ * {@link ConstantFolder}.
+ */
+public final class DeadCodeEliminator extends AstRewriter {
+
+    /**
+     * A value which no literal has, returned by {@link #literal} for
+     * expressions which are not literals.
+     */
+    private static final Object NONE = new Object();
+
+    public Ast.Source eliminate(Ast.Source source) {
+        return (Ast.Source) visit(source);
+    }
+
+    @Override
+    public Ast visit(Ast.Statement.Switch ast) {
+        Ast.Statement.Switch rewritten = (Ast.Statement.Switch) super.visit(ast);
+        Object condition = literal(rewritten.getCondition());
+        List<Ast.Statement.Case> cases = new ArrayList<>();
+        Set<Object> values = new HashSet<>();
+        for (Ast.Statement.Case c : rewritten.getCases()) {
+            Object value = c.getValue().map(DeadCodeEliminator::literal).orElse(NONE);
+            if (value != NONE && !values.add(value)) {
+                continue;
+            } else if (condition != NONE && condition != null && value != NONE) {
+                if (condition.equals(value)) {
+                    cases.add(new Ast.Statement.Case(Optional.empty(), c.getStatements()));
+                    break;
+                }
+                continue;
+            }
+            cases.add(c);
+        }
+        if (same(cases, rewritten.getCases())) {
+            return rewritten;
+        }
+        return new Ast.Statement.Switch(rewritten.getCondition(), cases);
+    }
+
+    @Override
+    protected List<Ast.Statement> visitStatements(List<Ast.Statement> statements) {
+        List<Ast.Statement> rewritten = new ArrayList<>();
+        for (Ast.Statement statement : statements) {
+            Ast.Statement visited = (Ast.Statement) visit(statement);
+            List<Ast.Statement> taken = taken(visited);
+            if (taken == null) {
+                rewritten.add(visited);
+            } else if (!declares(taken)) {
+                rewritten.addAll(taken);
+            } else if (visited instanceof Ast.Statement.If) {
+                Ast.Statement.If branch = (Ast.Statement.If) visited;
+                boolean then = taken == branch.getThenStatements();
+                rewritten.add(new Ast.Statement.If(branch.getCondition(),
+                        then ? taken : new ArrayList<>(), then ? new ArrayList<>() : taken));
+            } else {
+                rewritten.add(visited);
+            }
+            if (!rewritten.isEmpty() && !completes(rewritten.get(rewritten.size() - 1))) {
+                break;
+            }
+        }
+        return same(rewritten, statements) ? statements : rewritten;
+    }
+
+    /**
+     * Returns the only block of statements the statement executes, if it
+     * always executes the same block, and otherwise {@code null}.
+     */
+    private static List<Ast.Statement> taken(Ast.Statement statement) {
+        if (statement instanceof Ast.Statement.If) {
+            Ast.Statement.If ast = (Ast.Statement.If) statement;
+            Object condition = literal(ast.getCondition());
+            if (condition instanceof Boolean) {
+                return (Boolean) condition ? ast.getThenStatements() : ast.getElseStatements();
+            }
+        } else if (statement instanceof Ast.Statement.While) {
+            if (Boolean.FALSE.equals(literal(((Ast.Statement.While) statement).getCondition()))) {
+                return new ArrayList<>();
+            }
+        } else if (statement instanceof Ast.Statement.Switch) {
+            Ast.Statement.Switch ast = (Ast.Statement.Switch) statement;
+            Object condition = literal(ast.getCondition());
+            if (condition == NONE || condition == null) {
+                return null;
+            } else if (ast.getCases().isEmpty()) {
+                return new ArrayList<>();
+            } else if (ast.getCases().size() == 1 && !ast.getCases().get(0).getValue().isPresent()) {
+                return ast.getCases().get(0).getStatements();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code false} if execution never continues after the statement,
+     * since it always returns or loops forever. There is no statement to leave
+     * a loop, so a {@code WHILE TRUE} loop only ends by returning.
+     */
+    private static boolean completes(Ast.Statement statement) {
+        if (statement instanceof Ast.Statement.Return) {
+            return false;
+        } else if (statement instanceof Ast.Statement.If) {
+            Ast.Statement.If ast = (Ast.Statement.If) statement;
+            Object condition = literal(ast.getCondition());
+            if (condition instanceof Boolean) {
+                return completes((Boolean) condition ? ast.getThenStatements() : ast.getElseStatements());
+            }
+            return completes(ast.getThenStatements()) || completes(ast.getElseStatements());
+        } else if (statement instanceof Ast.Statement.While) {
+            return !Boolean.TRUE.equals(literal(((Ast.Statement.While) statement).getCondition()));
+        } else if (statement instanceof Ast.Statement.Switch) {
+            List<Ast.Statement.Case> cases = ((Ast.Statement.Switch) statement).getCases();
+            if (cases.isEmpty() || cases.get(cases.size() - 1).getValue().isPresent()) {
+                return true;
+            }
+            for (Ast.Statement.Case c : cases) {
+                if (completes(c.getStatements())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean completes(List<Ast.Statement> statements) {
+        return statements.isEmpty() || completes(statements.get(statements.size() - 1));
+    }
+
+    private static boolean declares(List<Ast.Statement> statements) {
+        for (Ast.Statement statement : statements) {
+            if (statement instanceof Ast.Statement.Declaration) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object literal(Ast.Expression expression) {
+        return expression instanceof Ast.Expression.Literal ? ((Ast.Expression.Literal) expression).getLiteral() : NONE;
+    }
+
+    private static <T> boolean same(List<T> a, List<T> b) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,209 @@
+package plc.project;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Hash-conses expressions, so equal expressions are represented by a single
+ * shared instance. Interning a source rewrites it bottom-up, replacing every
+ * expression with the first equal expression interned before it, which
+ * shrinks trees that repeat the same literals and subexpressions and lets
+ * later passes compare interned expressions by identity.
+ *
+ * Since the children of an interned expression are themselves interned, two
+ * expressions are compared by their own fields and the identity of their
+ * children, and the structural hash code of each interned expression is
+ * computed once from those of its children and cached. Types, variables and
+ * functions are compared by identity, so trees should be interned after the
+ * {@link Analyzer} has set them, and interned expressions must not be modified
+ * afterwards since they may be shared.
+ */
+public final class ExpressionInterner extends AstRewriter {
+
+    private final Map<Key, Ast.Expression> expressions = new HashMap<>();
+    private final Map<Ast.Expression, Integer> hashes = new IdentityHashMap<>();
+
+    public Ast.Source intern(Ast.Source source) {
+        return (Ast.Source) visit(source);
+    }
+
+    public Ast.Expression intern(Ast.Expression expression) {
+        return visitExpression(expression);
+    }
+
+    /**
+     * Returns the number of distinct expressions interned.
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    /**
+     * Returns the cached hash code of an interned expression, which is equal to
+     * its {@link Object#hashCode()} but does not visit its children.
+     */
+    public int getHash(Ast.Expression expression) {
+        Integer hash = hashes.get(expression);
+        if (hash == null) {
+            throw new IllegalArgumentException("Expression has not been interned.");
+        }
+        return hash;
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Literal ast) {
+        return intern(ast, Objects.hash(ast.getLiteral(), ast.getTypeOrNull()));
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Group ast) {
+        Ast.Expression.Group group = (Ast.Expression.Group) super.visit(ast);
+        return intern(group, Objects.hash(getHash(group.getExpression()), group.getTypeOrNull()));
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Binary ast) {
+        Ast.Expression.Binary binary = (Ast.Expression.Binary) super.visit(ast);
+        return intern(binary, Objects.hash(binary.getOperator(), getHash(binary.getLeft()), getHash(binary.getRight()), binary.getTypeOrNull()));
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Access ast) {
+        Ast.Expression.Access access = (Ast.Expression.Access) super.visit(ast);
+        int offset = access.getOffset().isPresent() ? getHash(access.getOffset().get()) : 0;
+        return intern(access, Objects.hash(offset, access.getName(), access.getVariableOrNull()));
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.Function ast) {
+        Ast.Expression.Function function = (Ast.Expression.Function) super.visit(ast);
+        return intern(function, Objects.hash(function.getName(), hash(function.getArguments()), function.getFunctionOrNull()));
+    }
+
+    @Override
+    public Ast visit(Ast.Expression.PlcList ast) {
+        Ast.Expression.PlcList list = (Ast.Expression.PlcList) super.visit(ast);
+        return intern(list, Objects.hash(hash(list.getValues()), list.getTypeOrNull()));
+    }
+
+    /**
+     * Returns the interned expression equal to the given one, whose children
+     * are already interned, interning it if there is none.
+     */
+    private Ast.Expression intern(Ast.Expression expression, int hash) {
+        Ast.Expression interned = expressions.putIfAbsent(new Key(expression, hash), expression);
+        if (interned != null) {
+            return interned;
+        }
+        hashes.put(expression, hash);
+        return expression;
+    }
+
+    /**
+     * Returns the hash code of a list of interned expressions, which is
+     * equal to {@link List#hashCode()}.
+     */
+    private int hash(List<Ast.Expression> expressions) {
+        int hash = 1;
+        for (Ast.Expression expression : expressions) {
+            hash = 31 * hash + getHash(expression);
+        }
+        return hash;
+    }
+
+    /**
+     * An expression with interned children in the table of interned
+     * expressions.
+     */
+    private static final class Key {
+
+        private final Ast.Expression expression;
+        private final int hash;
+
+        private Key(Ast.Expression expression, int hash) {
+            this.expression = expression;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key && hash == ((Key) obj).hash && same(expression, ((Key) obj).expression);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Returns {@code true} if the expressions have equal fields and the
+         * same children, types, variables and functions.
+         */
+        private static boolean same(Ast.Expression a, Ast.Expression b) {
+            if (a.getKind() != b.getKind()) {
+                return false;
+            }
+            switch (a.getKind()) {
+                case LITERAL: {
+                    Ast.Expression.Literal left = (Ast.Expression.Literal) a;
+                    Ast.Expression.Literal right = (Ast.Expression.Literal) b;
+                    return Objects.equals(left.getLiteral(), right.getLiteral())
+                            && left.getTypeOrNull() == right.getTypeOrNull();
+                }
+                case GROUP: {
+                    Ast.Expression.Group left = (Ast.Expression.Group) a;
+                    Ast.Expression.Group right = (Ast.Expression.Group) b;
+                    return left.getExpression() == right.getExpression()
+                            && left.getTypeOrNull() == right.getTypeOrNull();
+                }
+                case BINARY: {
+                    Ast.Expression.Binary left = (Ast.Expression.Binary) a;
+                    Ast.Expression.Binary right = (Ast.Expression.Binary) b;
+                    return left.getOperator().equals(right.getOperator())
+                            && left.getLeft() == right.getLeft()
+                            && left.getRight() == right.getRight()
+                            && left.getTypeOrNull() == right.getTypeOrNull();
+                }
+                case ACCESS: {
+                    Ast.Expression.Access left = (Ast.Expression.Access) a;
+                    Ast.Expression.Access right = (Ast.Expression.Access) b;
+                    return left.getName().equals(right.getName())
+                            && left.getOffset().orElse(null) == right.getOffset().orElse(null)
+                            && left.getVariableOrNull() == right.getVariableOrNull();
+                }
+                case FUNCTION_CALL: {
+                    Ast.Expression.Function left = (Ast.Expression.Function) a;
+                    Ast.Expression.Function right = (Ast.Expression.Function) b;
+                    return left.getName().equals(right.getName())
+                            && same(left.getArguments(), right.getArguments())
+                            && left.getFunctionOrNull() == right.getFunctionOrNull();
+                }
+                case LIST: {
+                    Ast.Expression.PlcList left = (Ast.Expression.PlcList) a;
+                    Ast.Expression.PlcList right = (Ast.Expression.PlcList) b;
+                    return same(left.getValues(), right.getValues())
+                            && left.getTypeOrNull() == right.getTypeOrNull();
+                }
+                default:
+                    throw new AssertionError("Unexpected expression kind " + a.getKind() + ".");
+            }
+        }
+
+        private static boolean same(List<Ast.Expression> a, List<Ast.Expression> b) {
+            if (a.size() != b.size()) {
+                return false;
+            }
+            for (int i = 0; i < a.size(); i++) {
+                if (a.get(i) != b.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
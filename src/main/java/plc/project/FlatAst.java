@@ -0,0 +1,514 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A compact copy of an {@link Ast.Source} which stores its nodes in primitive
+ * arrays instead of one object per node, for keeping trees in memory between
+ * phases at a fraction of the size of the object tree.
+ *
+ * Nodes are numbered in postfix order, so the children of a node always have
+ * lower numbers than the node and the source is the last node. Each node has
+ * an {@link Ast.Kind}, stored as its ordinal, and an offset into a shared
+ * array of integers holding its child count, its children, and then its
+ * other fields. Strings, literal values, types, variables and functions are
+ * indexes into a pool of distinct values, or {@code -1} for {@code null}.
+ * Neither building a flat tree nor recreating the object tree recurses, so
+ * both work for trees of any depth the {@link Parser} accepts.
+ *
+ * Existing visitors walk the tree through {@link #accept(Ast.Visitor)}, which
+ * recreates the object tree and copies the types, variables and functions
+ * set by the visitor (such as the {@link Analyzer}) back into the flat tree.
+ */
+public final class FlatAst {
+
+    private static final Ast.Kind[] KINDS = Ast.Kind.values();
+
+    private byte[] kinds = new byte[64];
+    private int[] offsets = new int[64];
+    private int[] data = new int[256];
+    private Object[] pool = new Object[64];
+    private int size = 0;
+    private int dataSize = 0;
+    private int poolSize = 0;
+
+    private FlatAst() {}
+
+    public static FlatAst of(Ast.Source source) {
+        FlatAst ast = new FlatAst();
+        new Builder(ast).build(source);
+        ast.kinds = Arrays.copyOf(ast.kinds, ast.size);
+        ast.offsets = Arrays.copyOf(ast.offsets, ast.size);
+        ast.data = Arrays.copyOf(ast.data, ast.dataSize);
+        ast.pool = Arrays.copyOf(ast.pool, ast.poolSize);
+        return ast;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getRoot() {
+        return size - 1;
+    }
+
+    public Ast.Kind getKind(int node) {
+        return KINDS[kinds[check(node)]];
+    }
+
+    public int getChildCount(int node) {
+        return data[offsets[check(node)]];
+    }
+
+    public int getChild(int node, int index) {
+        if (index < 0 || index >= getChildCount(node)) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + getChildCount(node) + " children.");
+        }
+        return data[offsets[node] + 1 + index];
+    }
+
+    /**
+     * Returns the value of a literal node, which may be {@code null}.
+     */
+    public Object getLiteral(int node) {
+        if (getKind(node) != Ast.Kind.LITERAL) {
+            throw new IllegalArgumentException("Node " + node + " is not a literal.");
+        }
+        return get(field(node, 0));
+    }
+
+    /**
+     * Returns the number of bytes used by the arrays of the tree, excluding
+     * the values in the pool which are shared with the object tree.
+     */
+    public long getArraySize() {
+        return kinds.length + 4L * offsets.length + 4L * data.length + 4L * pool.length;
+    }
+
+    /**
+     * Recreates the object tree.
+     */
+    public Ast.Source toSource() {
+        return (Ast.Source) toAsts()[getRoot()];
+    }
+
+    /**
+     * Visits a recreated object tree with the visitor, then stores the types,
+     * variables and functions it set on the nodes in this tree.
+     */
+    public <T> T accept(Ast.Visitor<T> visitor) {
+        Ast[] asts = toAsts();
+        T result = visitor.visit(asts[getRoot()]);
+        Map<Object, Integer> references = new IdentityHashMap<>();
+        for (int i = 0; i < poolSize; i++) {
+            references.putIfAbsent(pool[i], i);
+        }
+        for (int node = 0; node < size; node++) {
+            Ast ast = asts[node];
+            switch (KINDS[kinds[node]]) {
+                case GLOBAL:
+                    setField(node, 3, intern(references, ((Ast.Global) ast).getVariableOrNull()));
+                    break;
+                case FUNCTION:
+                    setField(node, 4, intern(references, ((Ast.Function) ast).getFunctionOrNull()));
+                    break;
+                case DECLARATION:
+                    setField(node, 2, intern(references, ((Ast.Statement.Declaration) ast).getVariableOrNull()));
+                    break;
+                case LITERAL:
+                    setField(node, 1, intern(references, ((Ast.Expression.Literal) ast).getTypeOrNull()));
+                    break;
+                case GROUP:
+                    setField(node, 0, intern(references, ((Ast.Expression.Group) ast).getTypeOrNull()));
+                    break;
+                case BINARY:
+                    setField(node, 1, intern(references, ((Ast.Expression.Binary) ast).getTypeOrNull()));
+                    break;
+                case ACCESS:
+                    setField(node, 1, intern(references, ((Ast.Expression.Access) ast).getVariableOrNull()));
+                    break;
+                case FUNCTION_CALL:
+                    setField(node, 1, intern(references, ((Ast.Expression.Function) ast).getFunctionOrNull()));
+                    break;
+                case LIST:
+                    setField(node, 0, intern(references, ((Ast.Expression.PlcList) ast).getTypeOrNull()));
+                    break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the object for each node in order, which is always after the
+     * objects of its children.
+     */
+    private Ast[] toAsts() {
+        Ast[] asts = new Ast[size];
+        for (int node = 0; node < size; node++) {
+            switch (KINDS[kinds[node]]) {
+                case SOURCE: {
+                    int globals = field(node, 0);
+                    asts[node] = new Ast.Source(children(asts, node, 0, globals), children(asts, node, globals, getChildCount(node)));
+                    break;
+                }
+                case GLOBAL: {
+                    Ast.Global global = new Ast.Global(string(node, 0), string(node, 1), field(node, 2) != 0, optional(asts, node));
+                    global.setVariable((Environment.Variable) get(field(node, 3)));
+                    asts[node] = global;
+                    break;
+                }
+                case FUNCTION: {
+                    Ast.Function function = new Ast.Function(string(node, 0), strings(node, 1), strings(node, 2),
+                            Optional.ofNullable(string(node, 3)), children(asts, node, 0, getChildCount(node)));
+                    function.setFunction((Environment.Function) get(field(node, 4)));
+                    asts[node] = function;
+                    break;
+                }
+                case EXPRESSION_STATEMENT:
+                    asts[node] = new Ast.Statement.Expression(child(asts, node, 0));
+                    break;
+                case DECLARATION: {
+                    Ast.Statement.Declaration declaration = new Ast.Statement.Declaration(string(node, 0), Optional.ofNullable(string(node, 1)), optional(asts, node));
+                    declaration.setVariable((Environment.Variable) get(field(node, 2)));
+                    asts[node] = declaration;
+                    break;
+                }
+                case ASSIGNMENT:
+                    asts[node] = new Ast.Statement.Assignment(child(asts, node, 0), child(asts, node, 1));
+                    break;
+                case IF: {
+                    int end = 1 + field(node, 0);
+                    asts[node] = new Ast.Statement.If(child(asts, node, 0), children(asts, node, 1, end), children(asts, node, end, getChildCount(node)));
+                    break;
+                }
+                case SWITCH:
+                    asts[node] = new Ast.Statement.Switch(child(asts, node, 0), children(asts, node, 1, getChildCount(node)));
+                    break;
+                case CASE: {
+                    int start = field(node, 0);
+                    Optional<Ast.Expression> value = start == 0 ? Optional.empty() : Optional.of(child(asts, node, 0));
+                    asts[node] = new Ast.Statement.Case(value, children(asts, node, start, getChildCount(node)));
+                    break;
+                }
+                case WHILE:
+                    asts[node] = new Ast.Statement.While(child(asts, node, 0), children(asts, node, 1, getChildCount(node)));
+                    break;
+                case RETURN:
+                    asts[node] = new Ast.Statement.Return(child(asts, node, 0));
+                    break;
+                case LITERAL: {
+                    Ast.Expression.Literal literal = new Ast.Expression.Literal(get(field(node, 0)));
+                    literal.setType((Environment.Type) get(field(node, 1)));
+                    asts[node] = literal;
+                    break;
+                }
+                case GROUP: {
+                    Ast.Expression.Group group = new Ast.Expression.Group(child(asts, node, 0));
+                    group.setType((Environment.Type) get(field(node, 0)));
+                    asts[node] = group;
+                    break;
+                }
+                case BINARY: {
+                    Ast.Expression.Binary binary = new Ast.Expression.Binary(string(node, 0), child(asts, node, 0), child(asts, node, 1));
+                    binary.setType((Environment.Type) get(field(node, 1)));
+                    asts[node] = binary;
+                    break;
+                }
+                case ACCESS: {
+                    Ast.Expression.Access access = new Ast.Expression.Access(optional(asts, node), string(node, 0));
+                    access.setVariable((Environment.Variable) get(field(node, 1)));
+                    asts[node] = access;
+                    break;
+                }
+                case FUNCTION_CALL: {
+                    Ast.Expression.Function function = new Ast.Expression.Function(string(node, 0), children(asts, node, 0, getChildCount(node)));
+                    function.setFunction((Environment.Function) get(field(node, 1)));
+                    asts[node] = function;
+                    break;
+                }
+                case LIST: {
+                    Ast.Expression.PlcList list = new Ast.Expression.PlcList(children(asts, node, 0, getChildCount(node)));
+                    list.setType((Environment.Type) get(field(node, 0)));
+                    asts[node] = list;
+                    break;
+                }
+                default:
+                    throw new AssertionError("Unexpected kind " + KINDS[kinds[node]] + ".");
+            }
+        }
+        return asts;
+    }
+
+    private Ast.Expression child(Ast[] asts, int node, int index) {
+        return (Ast.Expression) asts[data[offsets[node] + 1 + index]];
+    }
+
+    /**
+     * Returns the objects of the children from {@code start} to {@code end},
+     * cast to the element type expected by the constructor they are passed to.
+     */
+    @SuppressWarnings("unchecked")
+    private <T extends Ast> List<T> children(Ast[] asts, int node, int start, int end) {
+        List<T> children = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            children.add((T) asts[data[offsets[node] + 1 + i]]);
+        }
+        return children;
+    }
+
+    private <T extends Ast.Expression> Optional<T> optional(Ast[] asts, int node) {
+        @SuppressWarnings("unchecked")
+        Optional<T> optional = getChildCount(node) == 0 ? Optional.empty() : Optional.of((T) child(asts, node, 0));
+        return optional;
+    }
+
+    /**
+     * Returns the field of the node after its children.
+     */
+    private int field(int node, int index) {
+        int offset = offsets[node];
+        return data[offset + 1 + data[offset] + index];
+    }
+
+    private void setField(int node, int index, int value) {
+        int offset = offsets[node];
+        data[offset + 1 + data[offset] + index] = value;
+    }
+
+    private String string(int node, int index) {
+        return (String) get(field(node, index));
+    }
+
+    /**
+     * Returns a copy of a list of strings, since equal lists share one pooled
+     * list and the lists of recreated nodes must not alias each other.
+     */
+    @SuppressWarnings("unchecked")
+    private List<String> strings(int node, int index) {
+        return new ArrayList<>((List<String>) get(field(node, index)));
+    }
+
+    private Object get(int index) {
+        return index < 0 ? null : pool[index];
+    }
+
+    /**
+     * Adds a node with the given children and fields, returning its number.
+     */
+    private int add(Ast.Kind kind, List<Integer> children, int... fields) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size << 1);
+            offsets = Arrays.copyOf(offsets, size << 1);
+        }
+        int length = 1 + children.size() + fields.length;
+        if (dataSize + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length << 1, dataSize + length));
+        }
+        kinds[size] = (byte) kind.ordinal();
+        offsets[size] = dataSize;
+        data[dataSize++] = children.size();
+        for (int child : children) {
+            data[dataSize++] = child;
+        }
+        for (int field : fields) {
+            data[dataSize++] = field;
+        }
+        return size++;
+    }
+
+    /**
+     * Returns the pool index of the value in the map, adding it to the pool
+     * if it is not in the map yet.
+     */
+    private int intern(Map<Object, Integer> map, Object value) {
+        return value == null ? -1 : map.computeIfAbsent(value, this::pool);
+    }
+
+    private int pool(Object value) {
+        if (poolSize == pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(16, poolSize << 1));
+        }
+        pool[poolSize] = value;
+        return poolSize++;
+    }
+
+    private int check(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Node " + node + " out of bounds for size " + size + ".");
+        }
+        return node;
+    }
+
+    /**
+     * Adds the nodes of an object tree in postfix order with
+     * {@link Ast#walkPostfix}, returning the number of each node from its
+     * visit. Each visit takes the numbers of its children from the end of a
+     * stack of the numbers of nodes whose parent has not been added yet.
+     */
+    private static final class Builder implements Ast.Visitor<Integer> {
+
+        private final FlatAst ast;
+        /**
+         * Values compared by equality, such as strings and literals.
+         */
+        private final Map<Object, Integer> values = new HashMap<>();
+        /**
+         * Values compared by identity, such as types and variables, which
+         * must stay shared between all nodes referencing them.
+         */
+        private final Map<Object, Integer> references = new IdentityHashMap<>();
+        private final List<Integer> numbers = new ArrayList<>();
+        /**
+         * The index in the stack of the next child of the node being added.
+         */
+        private int next;
+
+        private Builder(FlatAst ast) {
+            this.ast = ast;
+        }
+
+        private void build(Ast.Source source) {
+            Ast.walkPostfix(source, (node, children) -> {
+                int end = numbers.size();
+                next = end - children;
+                int number = visit(node);
+                numbers.subList(end - children, end).clear();
+                numbers.add(number);
+            });
+        }
+
+        @Override
+        public Integer visit(Ast.Source ast) {
+            List<Integer> children = children(ast.getGlobals());
+            children.addAll(children(ast.getFunctions()));
+            return this.ast.add(ast.getKind(), children, ast.getGlobals().size());
+        }
+
+        @Override
+        public Integer visit(Ast.Global ast) {
+            return this.ast.add(ast.getKind(), optional(ast.getValue()), value(ast.getName()),
+                    value(ast.getTypeName()), ast.getMutable() ? 1 : 0, reference(ast.getVariableOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Function ast) {
+            return this.ast.add(ast.getKind(), children(ast.getStatements()), value(ast.getName()),
+                    value(ast.getParameters()), value(ast.getParameterTypeNames()),
+                    value(ast.getReturnTypeName().orElse(null)), reference(ast.getFunctionOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Expression ast) {
+            return this.ast.add(ast.getKind(), children(List.of(ast.getExpression())));
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Declaration ast) {
+            return this.ast.add(ast.getKind(), optional(ast.getValue()), value(ast.getName()),
+                    value(ast.getTypeName().orElse(null)), reference(ast.getVariableOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Assignment ast) {
+            return this.ast.add(ast.getKind(), children(List.of(ast.getReceiver(), ast.getValue())));
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.If ast) {
+            List<Integer> children = children(List.of(ast.getCondition()));
+            children.addAll(children(ast.getThenStatements()));
+            children.addAll(children(ast.getElseStatements()));
+            return this.ast.add(ast.getKind(), children, ast.getThenStatements().size());
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Switch ast) {
+            List<Integer> children = children(List.of(ast.getCondition()));
+            children.addAll(children(ast.getCases()));
+            return this.ast.add(ast.getKind(), children);
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Case ast) {
+            List<Integer> children = optional(ast.getValue());
+            int start = children.size();
+            children.addAll(children(ast.getStatements()));
+            return this.ast.add(ast.getKind(), children, start);
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.While ast) {
+            List<Integer> children = children(List.of(ast.getCondition()));
+            children.addAll(children(ast.getStatements()));
+            return this.ast.add(ast.getKind(), children);
+        }
+
+        @Override
+        public Integer visit(Ast.Statement.Return ast) {
+            return this.ast.add(ast.getKind(), children(List.of(ast.getValue())));
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Literal ast) {
+            return this.ast.add(ast.getKind(), List.of(), value(ast.getLiteral()), reference(ast.getTypeOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Group ast) {
+            return this.ast.add(ast.getKind(), children(List.of(ast.getExpression())), reference(ast.getTypeOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Binary ast) {
+            return this.ast.add(ast.getKind(), children(List.of(ast.getLeft(), ast.getRight())),
+                    value(ast.getOperator()), reference(ast.getTypeOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Access ast) {
+            return this.ast.add(ast.getKind(), optional(ast.getOffset()), value(ast.getName()),
+                    reference(ast.getVariableOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.Function ast) {
+            return this.ast.add(ast.getKind(), children(ast.getArguments()), value(ast.getName()),
+                    reference(ast.getFunctionOrNull()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expression.PlcList ast) {
+            return this.ast.add(ast.getKind(), children(ast.getValues()), reference(ast.getTypeOrNull()));
+        }
+
+        private int value(Object value) {
+            return ast.intern(values, value);
+        }
+
+        private int reference(Object value) {
+            return ast.intern(references, value);
+        }
+
+        /**
+         * Returns the numbers of the children, which were added before the
+         * node.
+         */
+        private List<Integer> children(List<? extends Ast> asts) {
+            List<Integer> children = new ArrayList<>(numbers.subList(next, next + asts.size()));
+            next += asts.size();
+            return children;
+        }
+
+        private List<Integer> optional(Optional<? extends Ast> ast) {
+            return children(ast.isPresent() ? List.of(ast.get()) : List.of());
+        }
+
+    }
+
+}
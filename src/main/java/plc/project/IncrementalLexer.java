@@ -0,0 +1,326 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Maintains the tokens of a source which is edited in place, re-lexing only
+ * the region damaged by each edit instead of the whole source.
+ *
+ * Both the source and the tokens are stored in gap buffers with the gap at
+ * the most recent edit. Tokens after the gap store their start as a distance
+ * from the end of the source, so an edit shifts every following token without
+ * touching them. After an edit, lexing restarts at the end of the last token
+ * that could not have read the edited characters and stops as soon as a token
+ * starts where an old token after the edit started, since every token from
+ * there on is unchanged. The cost of an edit is therefore proportional to the
+ * size of the damaged region and the distance from the previous edit, not to
+ * the size of the source.
+ *
+ * Tokens are the same as {@link Lexer#lex()} would produce for the current
+ * source. If an edit leaves the source invalid, the {@link ParseException} is
+ * thrown and the tokens are left partially updated, so {@link #size()},
+ * {@link #get(int)} and {@link #getTokens()} throw an
+ * {@link IllegalStateException} until the next edit, which lexes the whole
+ * source again. The source itself is always updated.
+ */
+public final class IncrementalLexer {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * The maximum number of characters the lexer rules look past the end of
+     * a token, as in {@link StreamingLexer}.
+     */
+    private static final int LOOKAHEAD = 3;
+
+    private final Text text;
+    private byte[] types = new byte[DEFAULT_CAPACITY];
+    private int[] starts = new int[DEFAULT_CAPACITY];
+    private int[] lengths = new int[DEFAULT_CAPACITY];
+    private int gapStart = 0;
+    private int gapEnd = DEFAULT_CAPACITY;
+    private boolean valid = false;
+
+    /**
+     * Lexes the initial source, throwing a {@link ParseException} if it is
+     * invalid.
+     */
+    public IncrementalLexer(String source) {
+        this.text = new Text(source);
+        lexAll();
+    }
+
+    /**
+     * Replaces {@code removed} characters at {@code offset} with
+     * {@code inserted} and updates the tokens.
+     */
+    public void edit(int offset, int removed, String inserted) {
+        if (offset < 0 || removed < 0 || offset + removed > text.length()) {
+            throw new IndexOutOfBoundsException("Edit [" + offset + ", " + (offset + removed) + ") out of bounds for length " + text.length() + ".");
+        }
+        if (!valid) {
+            text.replace(offset, removed, inserted);
+            lexAll();
+            return;
+        }
+        int damaged = damaged(offset);
+        moveGap(damaged);
+        int position = damaged > 0 ? getStart(damaged - 1) + lengths[damaged - 1] : 0;
+        text.replace(offset, removed, inserted);
+        int changed = offset + inserted.length();
+        TableLexer lexer = new TableLexer(text, position, 0);
+        try {
+            while (lexer.skipWhitespace()) {
+                int start = lexer.getIndex();
+                if (start >= changed) {
+                    while (gapEnd < types.length && text.length() - starts[gapEnd] < start) {
+                        gapEnd++;
+                    }
+                    if (gapEnd < types.length && text.length() - starts[gapEnd] == start) {
+                        return;
+                    }
+                }
+                Token.Type type = lexer.lexToken().getType();
+                insert(type, start, lexer.getIndex() - start);
+            }
+            gapEnd = types.length;
+        } catch (ParseException e) {
+            valid = false;
+            throw new ParseException(text.toString(), e.getIndex());
+        }
+    }
+
+    public int size() {
+        checkValid();
+        return count();
+    }
+
+    public Token get(int index) {
+        checkValid();
+        if (index < 0 || index >= count()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + count() + ".");
+        }
+        int slot = slot(index);
+        int start = getStart(index);
+        return new Token(TYPES[types[slot]], text.subSequence(start, start + lengths[slot]).toString(), start);
+    }
+
+    /**
+     * Returns a read-only view of the current tokens, creating tokens as they
+     * are accessed.
+     */
+    public List<Token> getTokens() {
+        checkValid();
+        return new AbstractList<>() {
+
+            @Override
+            public Token get(int index) {
+                return IncrementalLexer.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return IncrementalLexer.this.size();
+            }
+
+        };
+    }
+
+    /**
+     * Returns a copy of the current source.
+     */
+    public String getSource() {
+        return text.toString();
+    }
+
+    /**
+     * Returns the index of the first token starting at or after
+     * {@code position}.
+     */
+    int indexOf(int position) {
+        int low = 0;
+        int high = count();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getStart(middle) >= position) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private int count() {
+        return gapStart + types.length - gapEnd;
+    }
+
+    private void checkValid() {
+        if (!valid) {
+            throw new IllegalStateException("The tokens are invalid since the last edit failed.");
+        }
+    }
+
+    private void lexAll() {
+        String source = text.toString();
+        gapStart = 0;
+        gapEnd = types.length;
+        valid = false;
+        TableLexer lexer = new TableLexer(source);
+        while (lexer.skipWhitespace()) {
+            int start = lexer.getIndex();
+            Token.Type type = lexer.lexToken().getType();
+            insert(type, start, lexer.getIndex() - start);
+        }
+        valid = true;
+    }
+
+    /**
+     * Returns the index of the first token which may have read a character at
+     * or after {@code offset}, including the lookahead past its end.
+     */
+    private int damaged(int offset) {
+        int low = 0;
+        int high = count();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getStart(middle) + lengths[slot(middle)] + LOOKAHEAD > offset) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private int slot(int index) {
+        return index < gapStart ? index : index + gapEnd - gapStart;
+    }
+
+    private int getStart(int index) {
+        return index < gapStart ? starts[index] : text.length() - starts[index + gapEnd - gapStart];
+    }
+
+    /**
+     * Moves the gap to before the token at {@code index}, converting the
+     * starts of the moved tokens between absolute and end-relative.
+     */
+    private void moveGap(int index) {
+        while (gapStart > index) {
+            gapStart--;
+            gapEnd--;
+            types[gapEnd] = types[gapStart];
+            starts[gapEnd] = text.length() - starts[gapStart];
+            lengths[gapEnd] = lengths[gapStart];
+        }
+        while (gapStart < index) {
+            types[gapStart] = types[gapEnd];
+            starts[gapStart] = text.length() - starts[gapEnd];
+            lengths[gapStart] = lengths[gapEnd];
+            gapStart++;
+            gapEnd++;
+        }
+    }
+
+    private void insert(Token.Type type, int start, int length) {
+        if (gapStart == gapEnd) {
+            int tail = types.length - gapEnd;
+            int capacity = types.length + Math.max(DEFAULT_CAPACITY, types.length >> 1);
+            types = grow(types, capacity, tail);
+            starts = grow(starts, capacity, tail);
+            lengths = grow(lengths, capacity, tail);
+            gapEnd = capacity - tail;
+        }
+        types[gapStart] = (byte) type.ordinal();
+        starts[gapStart] = start;
+        lengths[gapStart] = length;
+        gapStart++;
+    }
+
+    private byte[] grow(byte[] array, int capacity, int tail) {
+        byte[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, grown, capacity - tail, tail);
+        return grown;
+    }
+
+    private int[] grow(int[] array, int capacity, int tail) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, grown, capacity - tail, tail);
+        return grown;
+    }
+
+    /**
+     * The source as a gap buffer of characters, with the gap at the most
+     * recent edit.
+     */
+    private static final class Text implements CharSequence {
+
+        private char[] chars;
+        private int gapStart;
+        private int gapEnd;
+
+        private Text(String source) {
+            chars = new char[source.length() + DEFAULT_CAPACITY];
+            source.getChars(0, source.length(), chars, 0);
+            gapStart = source.length();
+            gapEnd = chars.length;
+        }
+
+        @Override
+        public int length() {
+            return chars.length - (gapEnd - gapStart);
+        }
+
+        @Override
+        public char charAt(int index) {
+            return index < gapStart ? chars[index] : chars[index + gapEnd - gapStart];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            char[] copy = new char[end - start];
+            for (int i = start; i < end; i++) {
+                copy[i - start] = charAt(i);
+            }
+            return new String(copy);
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(length())
+                    .append(chars, 0, gapStart)
+                    .append(chars, gapEnd, chars.length - gapEnd)
+                    .toString();
+        }
+
+        private void replace(int offset, int removed, String inserted) {
+            if (offset < gapStart) {
+                int moved = gapStart - offset;
+                System.arraycopy(chars, offset, chars, gapEnd - moved, moved);
+                gapStart -= moved;
+                gapEnd -= moved;
+            } else if (offset > gapStart) {
+                int moved = offset - gapStart;
+                System.arraycopy(chars, gapEnd, chars, gapStart, moved);
+                gapStart += moved;
+                gapEnd += moved;
+            }
+            gapEnd += removed;
+            if (gapEnd - gapStart < inserted.length()) {
+                int tail = chars.length - gapEnd;
+                int capacity = Math.max(chars.length + (chars.length >> 1), length() + inserted.length() + DEFAULT_CAPACITY);
+                char[] grown = Arrays.copyOf(chars, capacity);
+                System.arraycopy(chars, gapEnd, grown, capacity - tail, tail);
+                chars = grown;
+                gapEnd = capacity - tail;
+            }
+            inserted.getChars(0, inserted.length(), chars, gapStart);
+            gapStart += inserted.length();
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maintains the AST of a source which is edited in place, reparsing only the
+ * globals and functions touched by each edit and reusing the existing
+ * {@link Ast.Global} and {@link Ast.Function} objects for the rest.
+ *
+ * The tokens are maintained by an {@link IncrementalLexer}, and the range of
+ * each declaration in the source is recorded. After an edit, parsing restarts
+ * at the first declaration which ends at or after the edit (since its last
+ * token may have changed) and stops as soon as a declaration would start
+ * where an old declaration after the edit started, since every declaration
+ * from there on is unchanged. Apart from shifting the recorded ranges and
+ * collecting the declarations into a new {@link Ast.Source}, the cost of an
+ * edit is therefore proportional to the declarations it touches, not to the
+ * size of the source.
+ *
+ * The AST is the same as {@link Parser#parseSource()} would produce for the
+ * current source. If an edit leaves the source invalid, the whole source is
+ * parsed again so the {@link ParseException} is exactly the one
+ * {@link Parser#parseSource()} throws, and the next edit parses the whole
+ * source again as well.
+ */
+public final class IncrementalParser {
+
+    private final IncrementalLexer lexer;
+    private final List<Declaration> declarations = new ArrayList<>();
+    private int globals = 0;
+    private boolean valid = false;
+    private Ast.Source source;
+
+    /**
+     * Parses the initial source, throwing a {@link ParseException} if it is
+     * invalid.
+     */
+    public IncrementalParser(String source) {
+        this.lexer = new IncrementalLexer(source);
+        parseAll();
+    }
+
+    /**
+     * Replaces {@code removed} characters at {@code offset} with
+     * {@code inserted} and returns the updated AST.
+     */
+    public Ast.Source edit(int offset, int removed, String inserted) {
+        int first = damaged(offset);
+        try {
+            lexer.edit(offset, removed, inserted);
+        } catch (ParseException e) {
+            valid = false;
+            throw e;
+        }
+        if (!valid) {
+            parseAll();
+            return source;
+        }
+        int delta = inserted.length() - removed;
+        int changed = offset + inserted.length();
+        List<Token> tokens = lexer.getTokens();
+        Parser parser = new Parser(tokens, first > 0 ? lexer.indexOf(declarations.get(first - 1).end) : 0);
+        parser.setStackless(true);
+        List<Declaration> parsed = new ArrayList<>();
+        boolean function = first > globals;
+        int old = first;
+        try {
+            while (parser.getPosition() < tokens.size()) {
+                int start = tokens.get(parser.getPosition()).getIndex();
+                if (start >= changed) {
+                    while (old < declarations.size() && (declarations.get(old).start < offset + removed || declarations.get(old).start + delta < start)) {
+                        old++;
+                    }
+                    if (old < declarations.size() && declarations.get(old).start + delta == start
+                            && (!function || declarations.get(old).ast instanceof Ast.Function)) {
+                        replace(first, old, parsed, delta);
+                        return source;
+                    }
+                }
+                Ast ast = parser.parseDeclaration(function);
+                function |= ast instanceof Ast.Function;
+                Token last = tokens.get(parser.getPosition() - 1);
+                parsed.add(new Declaration(ast, start, last.getIndex() + last.getLiteral().length()));
+            }
+        } catch (ParseException e) {
+            parseAll();
+            return source;
+        }
+        replace(first, declarations.size(), parsed, delta);
+        return source;
+    }
+
+    /**
+     * Returns the AST of the current source.
+     */
+    public Ast.Source getAst() {
+        if (!valid) {
+            throw new IllegalStateException("The source is invalid.");
+        }
+        return source;
+    }
+
+    /**
+     * Returns a read-only view of the current tokens, as
+     * {@link IncrementalLexer#getTokens()}.
+     */
+    public List<Token> getTokens() {
+        return lexer.getTokens();
+    }
+
+    /**
+     * Returns a copy of the current source.
+     */
+    public String getSource() {
+        return lexer.getSource();
+    }
+
+    private void parseAll() {
+        valid = false;
+        declarations.clear();
+        globals = 0;
+        List<Token> tokens = lexer.getTokens();
+        Parser parser = new Parser(tokens);
+        boolean function = false;
+        while (parser.getPosition() < tokens.size()) {
+            int start = tokens.get(parser.getPosition()).getIndex();
+            Ast ast = parser.parseDeclaration(function);
+            if (ast instanceof Ast.Function) {
+                function = true;
+            } else {
+                globals++;
+            }
+            Token last = tokens.get(parser.getPosition() - 1);
+            declarations.add(new Declaration(ast, start, last.getIndex() + last.getLiteral().length()));
+        }
+        update();
+    }
+
+    /**
+     * Returns the index of the first declaration which ends at or after
+     * {@code offset}, and so may be changed by an edit there.
+     */
+    private int damaged(int offset) {
+        int low = 0;
+        int high = declarations.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (declarations.get(middle).end >= offset) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces the declarations in {@code [first, old)} with the reparsed
+     * declarations, shifting the ranges of the declarations after them.
+     */
+    private void replace(int first, int old, List<Declaration> parsed, int delta) {
+        int reparsed = 0;
+        for (Declaration declaration : parsed) {
+            if (!(declaration.ast instanceof Ast.Function)) {
+                reparsed++;
+            }
+        }
+        globals = Math.min(first, globals) + reparsed + Math.max(0, globals - old);
+        for (int i = old; i < declarations.size(); i++) {
+            declarations.get(i).shift(delta);
+        }
+        List<Declaration> range = declarations.subList(first, old);
+        range.clear();
+        range.addAll(parsed);
+        update();
+    }
+
+    private void update() {
+        List<Ast.Global> globals = new ArrayList<>(this.globals);
+        List<Ast.Function> functions = new ArrayList<>(declarations.size() - this.globals);
+        for (Declaration declaration : declarations) {
+            if (declaration.ast instanceof Ast.Function) {
+                functions.add((Ast.Function) declaration.ast);
+            } else {
+                globals.add((Ast.Global) declaration.ast);
+            }
+        }
+        source = new Ast.Source(globals, functions);
+        valid = true;
+    }
+
+    /**
+     * A parsed global or function and the range of its tokens in the source.
+     */
+    private static final class Declaration {
+
+        private final Ast ast;
+        private int start;
+        private int end;
+
+        private Declaration(Ast ast, int start, int end) {
+            this.ast = ast;
+            this.start = start;
+            this.end = end;
+        }
+
+        private void shift(int delta) {
+            start += delta;
+            end += delta;
+        }
+
+    }
+
+}
@@ -33,7 +33,6 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         }
 
         for (Ast.Function function : ast.getFunctions()) {
-            System.out.println("visiting function " + function.getName());
             visit(function);
         }
 
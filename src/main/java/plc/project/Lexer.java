@@ -26,12 +26,29 @@ public final class Lexer {
 
 
     /**
-     * Repeatedly lexes the input using {@link #lexToken()}, also skipping over
-     * whitespace where appropriate.
+     * Lexes the remaining input using the table-driven {@link TableLexer},
+     * which produces the same tokens as {@link #lexRegex()} without compiling
+     * a regex for every character.
      */
     public List<Token> lex() {
+        return new TableLexer(chars.input, chars.index).lex();
+    }
 
+    /**
+     * Lexes the remaining input as {@link #lex()}, interning identifiers into
+     * the given {@link SymbolTable} so they can be shared across a whole
+     * compilation.
+     */
+    public List<Token> lex(SymbolTable symbols) {
+        return new TableLexer(chars.input, chars.index, symbols).lex();
+    }
 
+    /**
+     * Repeatedly lexes the input using {@link #lexToken()}, also skipping over
+     * whitespace where appropriate. This is the reference implementation of
+     * the lexer rules used by {@link #lex()}.
+     */
+    public List<Token> lexRegex() {
         List<Token> TokenList = new ArrayList<>();
 
         while(this.chars.has(0)){
@@ -129,7 +146,6 @@ public final class Lexer {
 //                    System.out.println(" === " + this.chars.get(0));
                     if(this.chars.has(1)){
                         if(this.match("\\.", "[0-9]")){
-                            System.out.println(this.chars.get(0));
                             while (this.chars.has(0)){
                                 if(!this.match("[0-9]")){
                                     return chars.emit(Token.Type.DECIMAL);
@@ -292,9 +308,9 @@ public final class Lexer {
                 this.match("&");
             }
         }
-        else if(this.match("|")){
+        else if(this.match("\\|")){
             if (this.chars.has(0)){
-                this.match("|");
+                this.match("\\|");
             }
         }
         else {
@@ -0,0 +1,88 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Decodes the values of literal tokens in a single pass over their text, for
+ * tokens whose value was not already decoded by the {@link TableLexer}.
+ */
+final class Literals {
+
+    private Literals() {}
+
+    /**
+     * Returns the character represented by the escape {@code \c}, which must
+     * be one of {@code b n r t ' " \}.
+     */
+    static char escape(char c) {
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            default:
+                return c;
+        }
+    }
+
+    /**
+     * Returns the value of the literal token of the given type whose text is
+     * the slice of {@code source} starting at {@code start}: a
+     * {@link BigInteger}, {@link BigDecimal}, {@link Character} or
+     * {@link String}, or {@code null} for any other token.
+     */
+    static Object decode(Token.Type type, CharSequence source, int start, int length) {
+        switch (type) {
+            case INTEGER:
+                return new BigInteger(source.subSequence(start, start + length).toString());
+            case DECIMAL:
+                return new BigDecimal(source.subSequence(start, start + length).toString());
+            case CHARACTER:
+                return decodeCharacter(source, start, length);
+            case STRING:
+                return decodeString(source, start + 1, start + length - 1);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the character of a character literal including its quotes, or
+     * {@code null} for the lone quote the lexer accepts at the end of input.
+     */
+    static Character decodeCharacter(CharSequence source, int start, int length) {
+        if (length < 3) {
+            return null;
+        }
+        char c = source.charAt(start + 1);
+        return c == '\\' ? escape(source.charAt(start + 2)) : c;
+    }
+
+    /**
+     * Returns the contents of a string literal between {@code start} and
+     * {@code end} (excluding the quotes) with its escapes decoded.
+     */
+    static String decodeString(CharSequence source, int start, int end) {
+        StringBuilder builder = null;
+        int plain = start;
+        for (int i = start; i < end; i++) {
+            if (source.charAt(i) == '\\' && i + 1 < end) {
+                if (builder == null) {
+                    builder = new StringBuilder(end - start);
+                }
+                builder.append(source, plain, i).append(escape(source.charAt(i + 1)));
+                plain = ++i + 1;
+            }
+        }
+        if (builder == null) {
+            return source.subSequence(start, end).toString();
+        }
+        return builder.append(source, plain, end).toString();
+    }
+
+}
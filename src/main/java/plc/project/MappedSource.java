@@ -0,0 +1,134 @@
+package plc.project;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link CharSequence} backed by a memory-mapped file, so large sources can
+ * be lexed by {@link TableLexer} without being copied onto the heap. Each byte
+ * is one character (ISO-8859-1, which includes ASCII), so indexes are byte
+ * offsets into the file.
+ *
+ * Sub sequences share the mapped buffer; only {@link #toString()} copies.
+ *
+ * The lexer skips runs of spaces and plain string contents through
+ * {@link #indexOfNonSpace(int)} and {@link #indexOfStringBreak(int)}, which
+ * compare eight characters at a time as the bytes of a {@code long} (SWAR).
+ */
+public final class MappedSource implements CharSequence {
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+
+    private final ByteBuffer bytes;
+    private final int start;
+    private final int length;
+
+    public MappedSource(ByteBuffer bytes) {
+        this(bytes, 0, bytes.limit());
+    }
+
+    private MappedSource(ByteBuffer bytes, int start, int length) {
+        this.bytes = bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        this.start = start;
+        this.length = length;
+    }
+
+    /**
+     * Maps the file at the given path read-only. The mapping stays valid after
+     * the channel is closed.
+     */
+    public static MappedSource open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The file " + path + " is too large to map (" + channel.size() + " bytes).");
+            }
+            return new MappedSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return (char) (bytes.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public MappedSource subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("[" + start + ", " + end + ") of " + length);
+        }
+        return new MappedSource(bytes, this.start + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] array = new byte[length];
+        bytes.get(start, array);
+        return new String(array, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Returns the index of the first character at or after {@code index} which
+     * is not a space, or the length if there is none.
+     */
+    int indexOfNonSpace(int index) {
+        while (index + Long.BYTES <= length) {
+            long word = bytes.getLong(start + index) ^ ONES * ' ';
+            if (word != 0) {
+                return index + (Long.numberOfTrailingZeros(word) >>> 3);
+            }
+            index += Long.BYTES;
+        }
+        while (index < length && bytes.get(start + index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the first character at or after {@code index} which
+     * ends the plain contents of a string literal (a quote, backslash, or line
+     * feed/carriage return), or the length if there is none.
+     */
+    int indexOfStringBreak(int index) {
+        while (index + Long.BYTES <= length) {
+            long word = bytes.getLong(start + index);
+            long found = zeros(word ^ ONES * '"') | zeros(word ^ ONES * '\\')
+                    | zeros(word ^ ONES * '\n') | zeros(word ^ ONES * '\r');
+            if (found != 0) {
+                return index + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+            index += Long.BYTES;
+        }
+        while (index < length) {
+            byte b = bytes.get(start + index);
+            if (b == '"' || b == '\\' || b == '\n' || b == '\r') {
+                return index;
+            }
+            index++;
+        }
+        return length;
+    }
+
+    /**
+     * Sets the high bit of every zero byte in the word. Bytes above a zero
+     * byte may also be set by the borrow, but the lowest set byte is exact.
+     */
+    private static long zeros(long word) {
+        return (word - ONES) & ~word & HIGHS;
+    }
+
+}
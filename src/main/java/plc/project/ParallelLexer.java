@@ -0,0 +1,132 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Lexes large sources by splitting them into chunks which are lexed
+ * concurrently on a {@link ForkJoinPool}, producing the same tokens (and
+ * exceptions) as {@link Lexer#lex()}.
+ *
+ * Chunks are split directly after a newline. Neither a string nor a character
+ * literal may contain a newline, so these positions are never inside a valid
+ * token and the state of the lexer is known to be "between tokens" there.
+ * Each chunk is lexed by a {@link TableLexer} over the whole input, so its
+ * last token may extend past the end of the chunk. When stitching, a chunk
+ * is only used if it starts at the same token the previous chunk stopped at;
+ * otherwise it is lexed again sequentially from that token.
+ */
+public final class ParallelLexer {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final CharSequence input;
+    private final int chunkSize;
+
+    public ParallelLexer(CharSequence input) {
+        this(input, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelLexer(CharSequence input, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.input = input;
+        this.chunkSize = chunkSize;
+    }
+
+    public List<Token> lex() {
+        return lex(ForkJoinPool.commonPool());
+    }
+
+    public List<Token> lex(ForkJoinPool pool) {
+        List<Integer> boundaries = split();
+        List<ForkJoinTask<Chunk>> chunks = new ArrayList<>();
+        for (int i = 0; i + 1 < boundaries.size(); i++) {
+            int start = boundaries.get(i);
+            int end = boundaries.get(i + 1);
+            chunks.add(pool.submit(() -> lex(start, end)));
+        }
+
+        List<Token> tokens = new ArrayList<>();
+        int next = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i).join();
+            if (chunk.first != next) {
+                chunk = lex(next, boundaries.get(i + 1));
+            }
+            tokens.addAll(chunk.tokens);
+            if (chunk.exception != null) {
+                throw chunk.exception;
+            }
+            next = chunk.next;
+        }
+        return tokens;
+    }
+
+    /**
+     * Returns the chunk boundaries, starting with {@code 0} and ending with
+     * the length of the input. Each inner boundary directly follows a newline.
+     */
+    private List<Integer> split() {
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int target = chunkSize;
+        while (target < input.length()) {
+            int boundary = target;
+            while (boundary < input.length() && input.charAt(boundary - 1) != '\n') {
+                boundary++;
+            }
+            if (boundary < input.length()) {
+                boundaries.add(boundary);
+            }
+            target = boundary + chunkSize;
+        }
+        boundaries.add(input.length());
+        return boundaries;
+    }
+
+    /**
+     * Lexes the tokens starting in {@code [start, end)}, stopping at the first
+     * exception.
+     */
+    private Chunk lex(int start, int end) {
+        TableLexer lexer = new TableLexer(input, start);
+        List<Token> tokens = new ArrayList<>();
+        lexer.skipWhitespace();
+        int first = lexer.getIndex();
+        try {
+            while (lexer.getIndex() < end) {
+                tokens.add(lexer.lexToken());
+                lexer.skipWhitespace();
+            }
+        } catch (ParseException e) {
+            return new Chunk(first, tokens, lexer.getIndex(), e);
+        }
+        return new Chunk(first, tokens, lexer.getIndex(), null);
+    }
+
+    /**
+     * The result of lexing a chunk: the index of its first token, the tokens,
+     * the index of the next token after the chunk, and the exception that
+     * stopped it, if any.
+     */
+    private static final class Chunk {
+
+        private final int first;
+        private final List<Token> tokens;
+        private final int next;
+        private final ParseException exception;
+
+        private Chunk(int first, List<Token> tokens, int next, ParseException exception) {
+            this.first = first;
+            this.tokens = tokens;
+            this.next = next;
+            this.exception = exception;
+        }
+
+    }
+
+}
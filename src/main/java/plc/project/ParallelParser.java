@@ -0,0 +1,98 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parses sources with many functions by parsing the functions concurrently on
+ * a {@link ForkJoinPool}, producing the same {@link Ast.Source} (and
+ * exceptions) as {@link Parser#parseSource()}.
+ *
+ * The tokens are split before every {@code FUN} token, as a heuristic for the
+ * starts of the functions: {@code FUN} usually starts a function, but it is
+ * lexed as an identifier and may also appear as an expression inside a
+ * function body. Consecutive functions are grouped into chunks of at least
+ * the chunk size, and each chunk is parsed as a source of its own while the
+ * globals before the first function are parsed on the calling thread.
+ *
+ * A split in the wrong place leaves the function before it without its
+ * {@code END}, so that part fails to parse. If any part fails to parse, the
+ * whole source is parsed again sequentially, so the result and the exception
+ * (always the first one in source order) are exactly those of
+ * {@link Parser#parseSource()}.
+ */
+public final class ParallelParser {
+
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 12;
+
+    private final List<Token> tokens;
+    private final int chunkSize;
+
+    public ParallelParser(List<Token> tokens) {
+        this(tokens, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelParser(List<Token> tokens, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive.");
+        }
+        this.tokens = tokens;
+        this.chunkSize = chunkSize;
+    }
+
+    public Ast.Source parseSource() throws ParseException {
+        return parseSource(ForkJoinPool.commonPool());
+    }
+
+    public Ast.Source parseSource(ForkJoinPool pool) throws ParseException {
+        List<Integer> boundaries = split();
+        List<ForkJoinTask<Ast.Source>> chunks = new ArrayList<>();
+        for (int i = 1; i + 1 < boundaries.size(); i++) {
+            List<Token> chunk = tokens.subList(boundaries.get(i), boundaries.get(i + 1));
+            chunks.add(pool.submit(() -> parse(chunk)));
+        }
+        try {
+            Ast.Source globals = parse(tokens.subList(0, boundaries.get(1)));
+            List<Ast.Function> functions = new ArrayList<>();
+            for (ForkJoinTask<Ast.Source> chunk : chunks) {
+                functions.addAll(chunk.join().getFunctions());
+            }
+            return new Ast.Source(globals.getGlobals(), functions);
+        } catch (ParseException e) {
+            chunks.forEach(chunk -> chunk.cancel(false));
+            return new Parser(tokens).parseSource();
+        }
+    }
+
+    /**
+     * Parses part of the source. The exception is discarded if it fails, so
+     * the parser does not capture stack traces.
+     */
+    private static Ast.Source parse(List<Token> tokens) {
+        Parser parser = new Parser(tokens);
+        parser.setStackless(true);
+        return parser.parseSource();
+    }
+
+    /**
+     * Returns the chunk boundaries, starting with {@code 0} and ending with
+     * the number of tokens. Each inner boundary is the index of a {@code FUN}
+     * token, the first of which ends the globals.
+     */
+    private List<Integer> split() {
+        List<Integer> boundaries = new ArrayList<>();
+        boundaries.add(0);
+        int target = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (i >= target && tokens.get(i).getKind() == Token.Kind.FUN) {
+                boundaries.add(i);
+                target = i + chunkSize;
+            }
+        }
+        boundaries.add(tokens.size());
+        return boundaries;
+    }
+
+}
@@ -9,6 +9,15 @@ public final class ParseException extends RuntimeException {
         this.index = index;
     }
 
+    /**
+     * Creates an exception which only captures a stack trace if
+     * {@code writableStackTrace} is true.
+     */
+    public ParseException(String message, int index, boolean writableStackTrace) {
+        super(message, null, true, writableStackTrace);
+        this.index = index;
+    }
+
     public int getIndex() {
         return index;
     }
@@ -3,11 +3,14 @@ package plc.project;
 import com.sun.jdi.connect.Connector;
 
 import javax.lang.model.type.NullType;
-import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * The parser takes the sequence of tokens emitted by the lexer and turns that
@@ -15,8 +18,8 @@ import java.util.Optional;
  * Tree (AST).
  * <p>
  * The parser has a similar architecture to the lexer, just with {@link Token}s
- * instead of characters. As before, {@link #peek(Object...)} and {@link
- * #match(Object...)} are helpers to make the implementation easier.
+ * instead of characters. As before, the {@code peek} and {@code match}
+ * methods are helpers to make the implementation easier.
  * <p>
  * This type of parser is called <em>recursive descent</em>. Each rule in our
  * grammar will have it's own function, and reference to other rules correspond
@@ -24,60 +27,178 @@ import java.util.Optional;
  */
 public final class Parser {
 
+    private static final int LOGICAL = 1;
+    private static final int COMPARISON = 2;
+    private static final int ADDITIVE = 3;
+    private static final int MULTIPLICATIVE = 4;
+    /**
+     * A precedence above that of every operator, for which {@link
+     * #parseBinaryExpression(int)} parses a single primary expression.
+     */
+    private static final int PRIMARY = 5;
+
+    /**
+     * The precedence of each binary operator by {@link Token.Kind} ordinal,
+     * or {@code 0} for tokens which are not binary operators.
+     */
+    private static final int[] PRECEDENCE = new int[Token.Kind.values().length];
+
+    /**
+     * The literal of each binary operator by {@link Token.Kind} ordinal.
+     */
+    private static final String[] OPERATORS = new String[Token.Kind.values().length];
+
+    static {
+        operator(Token.Kind.AND, "&&", LOGICAL);
+        operator(Token.Kind.OR, "||", LOGICAL);
+        operator(Token.Kind.GREATER, ">", COMPARISON);
+        operator(Token.Kind.LESS, "<", COMPARISON);
+        operator(Token.Kind.EQUAL, "==", COMPARISON);
+        operator(Token.Kind.NOT_EQUAL, "!=", COMPARISON);
+        operator(Token.Kind.PLUS, "+", ADDITIVE);
+        operator(Token.Kind.MINUS, "-", ADDITIVE);
+        operator(Token.Kind.MULTIPLY, "*", MULTIPLICATIVE);
+        operator(Token.Kind.DIVIDE, "/", MULTIPLICATIVE);
+        operator(Token.Kind.POWER, "^", MULTIPLICATIVE);
+    }
+
+    /**
+     * The kinds of the tokens which end a block, aka {@code END},
+     * {@code ELSE}, {@code DEFAULT} or {@code CASE}.
+     */
+    private static final Set<Token.Kind> BLOCK_END = EnumSet.of(Token.Kind.END, Token.Kind.ELSE, Token.Kind.DEFAULT, Token.Kind.CASE);
+
     private final TokenStream tokens;
+    private boolean stackless = false;
 
     public Parser(List<Token> tokens) {
+        this.tokens = new TokenStream(tokens, Collections.emptyIterator(), false);
+    }
+
+    /**
+     * Creates a parser which starts at the given index of the tokens, with
+     * the tokens before it still available for error messages.
+     */
+    Parser(List<Token> tokens, int index) {
+        this(tokens);
+        this.tokens.index = index;
+    }
+
+    /**
+     * Creates a parser which pulls tokens from the iterator as they are
+     * needed, such as from a {@link StreamingLexer}.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this.tokens = new TokenStream(new ArrayList<>(), tokens, true);
+    }
+
+    /**
+     * Creates a parser which reads tokens directly from the arrays of a
+     * {@link TokenBuffer}, without creating {@link Token} objects.
+     */
+    public Parser(TokenBuffer tokens) {
         this.tokens = new TokenStream(tokens);
     }
 
+    /**
+     * Sets whether the exceptions thrown by this parser skip capturing a
+     * stack trace, which is most of the cost of a failed parse. Messages and
+     * indexes are unchanged, so this is useful when many sources are
+     * expected to fail, such as when validating them in bulk.
+     */
+    public void setStackless(boolean stackless) {
+        this.stackless = stackless;
+    }
+
     /**
      * Parses the {@code source} rule.
      */
 
     public Ast.Source parseSource() throws ParseException {
+        List<Ast.Global> globals = new ArrayList<>();
+        List<Ast.Function> functions = new ArrayList<>();
+        parseSource(globals::add, functions::add);
+        return new Ast.Source(globals, functions);
+    }
 
+    /**
+     * Parses the {@code source} rule, passing each global and function to the
+     * consumers as soon as it is parsed instead of returning an
+     * {@link Ast.Source}, so later phases can start before parsing finishes.
+     * <p>
+     * When tokens are pulled from an iterator, tokens are also discarded once
+     * each global or function is parsed, so neither the tokens nor the AST of
+     * the whole source need to be held in memory at once.
+     */
+    public void parseSource(Consumer<? super Ast.Global> globals, Consumer<? super Ast.Function> functions) throws ParseException {
         try {
-            System.out.println("Starting here");
-            List<Ast.Global> globals = new ArrayList<>();
-            List<Ast.Function> functions = new ArrayList<>();
             boolean functionEncountered = false;
 
             while (tokens.has(0)) {
-                if (peek("LIST") || peek("VAR") || peek("VAL")) {
-                    if (functionEncountered) {
-                        throw new ParseException("Invalid Source: Globals Cannot Come After Functions", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                    }
-                    globals.add(parseGlobal());
-                } else if (peek("FUN")) {
-                    functions.add(parseFunction());
+                Ast declaration = parseDeclaration(functionEncountered);
+                if (declaration instanceof Ast.Function) {
+                    functions.accept((Ast.Function) declaration);
                     functionEncountered = true;
+                } else {
+                    globals.accept((Ast.Global) declaration);
                 }
+                tokens.discard();
             }
-            return new Ast.Source(globals, functions);
         } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+            throw rethrow(p);
         }
     }
 
+    /**
+     * Parses a single global or function of the {@code source} rule, given
+     * whether a function has already been parsed (since globals must come
+     * before functions).
+     */
+    Ast parseDeclaration(boolean functionEncountered) throws ParseException {
+        switch (tokens.getKind(0)) {
+            case LIST:
+            case VAR:
+            case VAL:
+                if (functionEncountered) {
+                    throw error("Invalid Source: Globals Cannot Come After Functions", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+                }
+                return parseGlobal();
+            case FUN:
+                return parseFunction();
+            default:
+                throw error("Invalid Source: Expected global or function", tokens.getIndex(0));
+        }
+    }
+
+    /**
+     * Returns the index of the next token, for parsers created from a list of
+     * tokens.
+     */
+    int getPosition() {
+        return tokens.index;
+    }
+
     /**
      * Parses the {@code global} rule. This method should only be called if the
      * next tokens start a global, aka {@code LIST|VAL|VAR}.
      */
     public Ast.Global parseGlobal() throws ParseException {
         try {
-            if (match("LIST")) {
-
-                return parseList();
-            } else if (match("VAR")) {
-                return parseMutable();
-            } else if (match("VAL")) {
-//                System.out.println("Global search -- immutable found");
-                return parseImmutable();
-            } else {
-                throw new ParseException("Invalid Global", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            switch (tokens.getKind(0)) {
+                case LIST:
+                    tokens.advance();
+                    return parseList();
+                case VAR:
+                    tokens.advance();
+                    return parseMutable();
+                case VAL:
+                    tokens.advance();
+                    return parseImmutable();
+                default:
+                    throw error("Invalid Global", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
         } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+            throw rethrow(p);
         }
     }
 
@@ -93,49 +214,49 @@ public final class Parser {
             boolean mutable = true;
             List<Ast.Expression> expressions = new ArrayList<>();
             if (!match(Token.Type.IDENTIFIER)) {
-                throw new ParseException("Invalid List: Missing Identifier", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Invalid List: Missing Identifier", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
-                name = tokens.get(-1).getLiteral();
+                name = tokens.getLiteral(-1);
             }
-            if(!match(":")){
-                throw new ParseException("Invalid List: Missing ':'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if(!match(Token.Kind.COLON)){
+                throw error("Invalid List: Missing ':'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
             if(match(Token.Type.IDENTIFIER)){
-                typeName = tokens.get(-1).getLiteral();
+                typeName = tokens.getLiteral(-1);
             } else {
-                throw new ParseException("Invalid List: Missing type name", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Invalid List: Missing type name", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
-            if (!match("=")) {
-                throw new ParseException("Invalid List: Missing '='", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.ASSIGN)) {
+                throw error("Invalid List: Missing '='", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
-            if (!match("[")) {
-                throw new ParseException("Invalid List: Expecting '['", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.LEFT_BRACKET)) {
+                throw error("Invalid List: Expecting '['", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
                 // '(' found and need to extract everything else
                 expressions.add(parseExpression());
-                if (!peek("]")) {
+                if (!peek(Token.Kind.RIGHT_BRACKET)) {
 
-                    while (match(",")) {
-                        if (peek("]")) {
-                            throw new ParseException("Invalid List: Expected Another Expression", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                    while (match(Token.Kind.COMMA)) {
+                        if (peek(Token.Kind.RIGHT_BRACKET)) {
+                            throw error("Invalid List: Expected Another Expression", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
 
                         }
                         try {
                             expressions.add(parseExpression());
                         } catch (ParseException p2) {
-                            throw new ParseException(p2.getMessage(), p2.getIndex());
+                            throw rethrow(p2);
                         }
                     }
 
                 }
 
-                if (!match("]")) {
-                    throw new ParseException("Invalid List: Expecting ']'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                if (!match(Token.Kind.RIGHT_BRACKET)) {
+                    throw error("Invalid List: Expecting ']'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 }
             }
-            if (!match(";")) {
-                throw new ParseException("semicolon missing", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.SEMICOLON)) {
+                throw error("semicolon missing", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
                 Ast.Expression.PlcList list = new Ast.Expression.PlcList(expressions);
                 list.setType(Environment.getType(typeName));
@@ -146,7 +267,7 @@ public final class Parser {
 //            Ast.Expression.PlcList list;
 //            return new Ast.Global(name, mutable, Optional.of(list));
         } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+            throw rethrow(p);
         }
     }
 
@@ -161,35 +282,35 @@ public final class Parser {
             String name;
             String typeName;
             if (match(Token.Type.IDENTIFIER)) {
-                name = tokens.get(-1).getLiteral();
+                name = tokens.getLiteral(-1);
             } else {
-                throw new ParseException("No identifier found", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("No identifier found", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
-            if (!match(":")) {
-                throw new ParseException("Invalid Mutable: Expecting ':'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.COLON)) {
+                throw error("Invalid Mutable: Expecting ':'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
             if (match(Token.Type.IDENTIFIER)) {
-                typeName = tokens.get(-1).getLiteral();
+                typeName = tokens.getLiteral(-1);
             } else {
-                throw new ParseException("Invalid Mutable: missing type name", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Invalid Mutable: missing type name", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
-            if (match("=")) {
+            if (match(Token.Kind.ASSIGN)) {
                 Ast.Expression expression = parseExpression();
-                if (!match(";")) {
-                    throw new ParseException("Invalid mutable: semicolon missing (1)", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                if (!match(Token.Kind.SEMICOLON)) {
+                    throw error("Invalid mutable: semicolon missing (1)", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 } else {
                     return new Ast.Global(name, typeName, mutable, Optional.of(expression));
                 }
-            } else if (!match(";")) {
-                throw new ParseException("Invalid mutable: semicolon missing (2)", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            } else if (!match(Token.Kind.SEMICOLON)) {
+                throw error("Invalid mutable: semicolon missing (2)", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
                 return new Ast.Global(name, typeName, mutable, Optional.empty());
             }
 
         } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+            throw rethrow(p);
         }
     }
 
@@ -205,38 +326,38 @@ public final class Parser {
             String typeName;
             if (match(Token.Type.IDENTIFIER)) {
 
-                name = tokens.get(-1).getLiteral();
+                name = tokens.getLiteral(-1);
 //                System.out.println("Found Identifier");
             } else {
-                throw new ParseException("No identifier found", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("No identifier found", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
             // look for : -> IDENTIFIER Type -> =
-            if(!match(":")){
-                throw new ParseException("Invalid immutable: Missing :", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if(!match(Token.Kind.COLON)){
+                throw error("Invalid immutable: Missing :", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
             if(match(Token.Type.IDENTIFIER)){
-                typeName = tokens.get(-1).getLiteral();
+                typeName = tokens.getLiteral(-1);
             } else {
-                throw new ParseException("Invalid immutable: Missing Type", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Invalid immutable: Missing Type", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
 
             }
 
 
-            if (!match("=")) {
+            if (!match(Token.Kind.ASSIGN)) {
 //                System.out.println("Here");
-                throw new ParseException("Invalid immutable", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Invalid immutable", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
                 Ast.Expression expression = parseExpression();
-                if (!match(";")) {
-                    throw new ParseException("semicolon missing", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                if (!match(Token.Kind.SEMICOLON)) {
+                    throw error("semicolon missing", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 } else {
                     return new Ast.Global(name, typeName, mutable, Optional.of(expression));
                 }
             }
         } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+            throw rethrow(p);
         }
     }
 
@@ -252,66 +373,66 @@ public final class Parser {
             String retType = "";
             List<String> paramTypes = new ArrayList<>();
             List<String> parameters = new ArrayList<>();
-            if (!match("FUN")) {
-                throw new ParseException("Invalid Funciton: Missing 'FUN' Keyword", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.FUN)) {
+                throw error("Invalid Funciton: Missing 'FUN' Keyword", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
             if (!match(Token.Type.IDENTIFIER)) {
-                throw new ParseException("Missing function name", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Missing function name", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
-                name = tokens.get(-1).getLiteral();
+                name = tokens.getLiteral(-1);
             }
 
-            if (!match("(")) {
-                throw new ParseException("Invalid Funciton: Expecting '('", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.LEFT_PAREN)) {
+                throw error("Invalid Funciton: Expecting '('", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
                 // '(' found and need to extract everything else
-                if (!peek(")")) {
+                if (!peek(Token.Kind.RIGHT_PAREN)) {
                     while (match(Token.Type.IDENTIFIER)) {
-                        parameters.add(tokens.get(-1).getLiteral());
-                        if(!match(":")){
-                            throw new ParseException("Invalid Function (Parse parameters): Expecting ':'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                        parameters.add(tokens.getLiteral(-1));
+                        if(!match(Token.Kind.COLON)){
+                            throw error("Invalid Function (Parse parameters): Expecting ':'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                         }
                         if (match(Token.Type.IDENTIFIER)) {
-                            paramTypes.add(tokens.get(-1).getLiteral());
+                            paramTypes.add(tokens.getLiteral(-1));
                         } else {
-                            throw new ParseException("Invalid Function (Parse parameters): Expecting parameter type", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                            throw error("Invalid Function (Parse parameters): Expecting parameter type", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                         }
 
-                        if (!match(",")) {
-                            if (!peek(")")) {
-                                throw new ParseException("Invalid Function: Expected ',' between parameters", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                        if (!match(Token.Kind.COMMA)) {
+                            if (!peek(Token.Kind.RIGHT_PAREN)) {
+                                throw error("Invalid Function: Expected ',' between parameters", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                             }
                         }
                     }
 
                 }
-                if (!match(")")) {
-                    throw new ParseException("Invalid Function: Expecting ')'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                if (!match(Token.Kind.RIGHT_PAREN)) {
+                    throw error("Invalid Function: Expecting ')'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 }
             }
 
             // look for : -> IDENTIFIER type
-            if (match(":")) {   // if this does not exist, assume it is a void function
-//                throw new ParseException("Invalid Function: Expecting ':'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (match(Token.Kind.COLON)) {   // if this does not exist, assume it is a void function
+//                throw error("Invalid Function: Expecting ':'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 if (match(Token.Type.IDENTIFIER)) {
-                    retType = tokens.get(-1).getLiteral();
+                    retType = tokens.getLiteral(-1);
                 } else {
-                    throw new ParseException("Invalid Function: Missing return type", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                    throw error("Invalid Function: Missing return type", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
 
                 }
             }
 
 
             //'DO' Block 'END'
-            if (!match("DO")) {
-                throw new ParseException("Invalid Function: Invalid DO", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.DO)) {
+                throw error("Invalid Function: Invalid DO", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
             List<Ast.Statement> statements = parseBlock();
 
 
-            if (!match("END")) {
-                throw new ParseException("Invalid Function: Missing 'END' Keyword", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+            if (!match(Token.Kind.END)) {
+                throw error("Invalid Function: Missing 'END' Keyword", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
 
 //            List<String> paramTypes;
@@ -319,7 +440,7 @@ public final class Parser {
             return new Ast.Function(name, parameters, paramTypes, Optional.ofNullable(retType), statements);
 
         } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+            throw rethrow(p);
         }
 
     }
@@ -329,26 +450,7 @@ public final class Parser {
      * preceding token indicates the opening a block of statements.
      */
     public List<Ast.Statement> parseBlock() throws ParseException {
-        //TODO Fix
-        //Peeks for ways Block can conclude, does not match those conditions
-        try {
-            List<Ast.Statement> StatementList = new ArrayList<>();
-            while (!peek("END") && !peek("ELSE") && !peek("DEFAULT") && !peek("CASE")) {
-                StatementList.add(parseStatement());
-            }
-
-            return StatementList;
-
-        } catch (ParseException p) {
-            if (!tokens.has(0)) {
-                List<Ast.Statement> StatementList = new ArrayList<>();
-                return StatementList;
-            } else {
-                throw new ParseException(p.getMessage() + " Invalid Block.", p.getIndex());
-            }
-        }
-
-
+        return statements(parseNested(new BlockFrame()));
     }
 
     /**
@@ -357,76 +459,56 @@ public final class Parser {
      * statement, then it is an expression/assignment statement.
      */
     public Ast.Statement parseStatement() throws ParseException {
-        //TODO: (later) be able to determine what type of statement to parse
-        // for now, just parse expressions
-
-        //All parse logic contained in sub functions, except for Statement.Expression
+        Object statement = startStatement();
+        return (Ast.Statement) (statement instanceof Frame ? parseNested((Frame) statement) : statement);
+    }
 
-        //Let
-        if (peek("LET")) {
-            try {
+    /**
+     * Parses a statement which does not contain a block, or returns the frame
+     * which parses it if it does.
+     */
+    private Object startStatement() throws ParseException {
+        switch (tokens.getKind(0)) {
+            case LET:
                 return parseDeclarationStatement();
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
-            }
-        }
-
-        //Switch
-        else if (peek("SWITCH")) {
-            try {
-                return parseSwitchStatement();
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
-            }
-        }
-
-        //IF
-        else if (peek("IF")) {
-            try {
-                return parseIfStatement();
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
-            }
+            case SWITCH:
+                return new SwitchFrame();
+            case IF:
+                return new IfFrame();
+            case WHILE:
+                return new WhileFrame();
+            case RETURN:
+                return parseReturnStatement();
+            default:
+                return parseExpressionStatement();
         }
+    }
 
-        //While
-        else if (peek("WHILE")) {
-            try {
-                return parseWhileStatement();
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
+    /**
+     * Parses an expression or assignment statement from the {@code statement}
+     * rule, which is any statement not starting with a keyword.
+     */
+    private Ast.Statement parseExpressionStatement() throws ParseException {
+        Ast.Expression initExpr = parseExpression();
+        if (!peek(Token.Kind.ASSIGN)) {
+            if (!match(Token.Kind.SEMICOLON)) {
+                throw error("Invalid statement: semicolon missing", tokens.getIndex(-1));
             }
-        }
+            Ast.Statement.Expression help = new Ast.Statement.Expression(initExpr);
 
-        //Return
-        else if (peek("RETURN")) {
+            return help;
+        } else {
             try {
-                return parseReturnStatement();
+                match(Token.Kind.ASSIGN);
+                Ast.Expression assignExpr = parseExpression();
+                if (!match(Token.Kind.SEMICOLON)) {
+                    throw error("Invalid statement: semicolon missing", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+                }
+                return new Ast.Statement.Assignment(initExpr, assignExpr);
             } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
+                throw rethrow(p);
             }
-        } else {
-            Ast.Expression initExpr = parseExpression();
-            if (!peek("=")) {
-                if (!match(";")) {
-                    throw new ParseException("Invalid statement: semicolon missing", tokens.get(-1).getIndex());
-                }
-                Ast.Statement.Expression help = new Ast.Statement.Expression(initExpr);
-
-                return help;
-            } else {
-                try {
-                    match("=");
-                    Ast.Expression assignExpr = parseExpression();
-                    if (!match(";")) {
-                        throw new ParseException("Invalid statement: semicolon missing", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                    }
-                    return new Ast.Statement.Assignment(initExpr, assignExpr);
-                } catch (ParseException p) {
-                    throw new ParseException(p.getMessage(), p.getIndex());
-                }
 
-            }
         }
 
     }
@@ -438,51 +520,51 @@ public final class Parser {
      */
     public Ast.Statement.Declaration parseDeclarationStatement() throws ParseException {
         //'LET' identifier ('=' expression)? ';'
-        if (match("LET")) {
+        if (match(Token.Kind.LET)) {
             if (match(Token.Type.IDENTIFIER)) {
-                String IdentifierString = tokens.get(-1).getLiteral();
+                String IdentifierString = tokens.getLiteral(-1);
 
                 String typeName;
 
                 //Initialization
-                if (match("=")) {
+                if (match(Token.Kind.ASSIGN)) {
                     try {
                         Ast.Expression Expr = parseExpression();
-                        if (match(";")) {
+                        if (match(Token.Kind.SEMICOLON)) {
                             return new Ast.Statement.Declaration(IdentifierString, Optional.of(Expr));
                         } else {
-                            throw new ParseException("Exception missing ';'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                            throw error("Exception missing ';'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                         }
                     } catch (ParseException p) {
-                        throw new ParseException(p.getMessage(), p.getIndex());
+                        throw rethrow(p);
                     }
                 }
                 //Definition
 
                 //TODO Added this to help with declaration problem
-                if (match(";")) {
+                if (match(Token.Kind.SEMICOLON)) {
                     return new Ast.Statement.Declaration(IdentifierString, Optional.ofNullable(null), Optional.empty());
                 }
-                if(!match(":")){
-                    throw new ParseException("Invalid Declaration: Exception missing ':'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                if(!match(Token.Kind.COLON)){
+                    throw error("Invalid Declaration: Exception missing ':'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 }
                 if(match(Token.Type.IDENTIFIER)){
-                    typeName = tokens.get(-1).getLiteral();
+                    typeName = tokens.getLiteral(-1);
                 } else {
-                    throw new ParseException("Invalid Declaration: Exception missing type name", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                    throw error("Invalid Declaration: Exception missing type name", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 }
-                if (match(";")) {
+                if (match(Token.Kind.SEMICOLON)) {
                     return new Ast.Statement.Declaration(IdentifierString, Optional.ofNullable(typeName), Optional.empty());
                 } else {
 //                    System.out.println("Throwing Here");
-                    throw new ParseException("Exception missing ';'", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                    throw error("Exception missing ';'", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 }
 
             } else {
-                throw new ParseException("Exception missing identifier", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Exception missing identifier", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             }
         } else {
-            throw new ParseException("Invalid parseDeclarationStatement.", tokens.get(0).getIndex());
+            throw error("Invalid parseDeclarationStatement.", tokens.getIndex(0));
         }
     }
 
@@ -492,37 +574,10 @@ public final class Parser {
      * {@code IF}.
      */
     public Ast.Statement.If parseIfStatement() throws ParseException {
-        if (match("IF")) {
-            try {
-                Ast.Expression Condition = parseExpression();
-                if (match("DO")) {
-                    List<Ast.Statement> DoBLock = parseBlock();
-                    if (match("ELSE")) {
-                        List<Ast.Statement> ElseBLock = parseBlock();
-                        if (match("END")) {
-                            return new Ast.Statement.If(Condition, DoBLock, ElseBLock);
-                        } else {
-                            throw new ParseException("Expected if else END.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
-                        }
-                    } else {
-                        if (match("END")) {
-                            List<Ast.Statement> EmptyElse = new ArrayList<>();
-                            return new Ast.Statement.If(Condition, DoBLock, EmptyElse);
-                        } else {
-                            throw new ParseException("Expected if END.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
-                        }
-                    }
-                } else {
-                    // TODO: fails for the test case "IF expr THEN"
-                    // Exception throws at index 7, but I think it should be at index 8
-                    throw new ParseException("Expected if DO.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
-                }
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
-            }
-        } else {
-            throw new ParseException("Invalid parseIfStatement.", tokens.get(0).getIndex());
+        if (!peek(Token.Kind.IF)) {
+            throw error("Invalid parseIfStatement.", tokens.getIndex(0));
         }
+        return (Ast.Statement.If) parseNested(new IfFrame());
     }
 
     /**
@@ -531,29 +586,10 @@ public final class Parser {
      * {@code SWITCH}.
      */
     public Ast.Statement.Switch parseSwitchStatement() throws ParseException {
-        if (match("SWITCH")) {
-            try {
-                Ast.Expression Condition = parseExpression();
-                List<Ast.Statement.Case> Cases = new ArrayList<>();
-                while (peek("CASE")) {
-                    Cases.add(parseCaseStatement());
-                }
-                if (peek("DEFAULT")) {
-                    Cases.add(parseCaseStatement());
-                    if (match("END")) {
-                        return new Ast.Statement.Switch(Condition, Cases);
-                    } else {
-                        throw new ParseException("Expected switch END.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
-                    }
-                } else {
-                    throw new ParseException("Expected switch DEFAULT.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
-                }
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
-            }
-        } else {
-            throw new ParseException("Invalid parseSwitchStatement.", tokens.get(0).getIndex());
+        if (!peek(Token.Kind.SWITCH)) {
+            throw error("Invalid parseSwitchStatement.", tokens.getIndex(0));
         }
+        return (Ast.Statement.Switch) parseNested(new SwitchFrame());
     }
 
     /**
@@ -562,18 +598,7 @@ public final class Parser {
      * default block of a switch statement, aka {@code CASE} or {@code DEFAULT}.
      */
     public Ast.Statement.Case parseCaseStatement() throws ParseException {
-        if (match("CASE")) {
-            Ast.Expression CaseValue = parseExpression();
-            if (match(":")) {
-                return new Ast.Statement.Case(Optional.of(CaseValue), parseBlock());
-            } else {
-                throw new ParseException("Expected case :.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-            }
-        } else if (match("DEFAULT")) {
-            return new Ast.Statement.Case(Optional.empty(), parseBlock());
-        } else {
-            throw new ParseException("Invalid parseCaseStatement.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-        }
+        return (Ast.Statement.Case) parseNested(new CaseFrame());
     }
 
     /**
@@ -582,25 +607,225 @@ public final class Parser {
      * {@code WHILE}.
      */
     public Ast.Statement.While parseWhileStatement() throws ParseException {
-        //'WHILE' expression 'DO' block 'END'
-        if (match("WHILE")) {
+        if (!peek(Token.Kind.WHILE)) {
+            throw error("Invalid parseWhileStatement.", tokens.getIndex(0));
+        }
+        return (Ast.Statement.While) parseNested(new WhileFrame());
+    }
+
+    /**
+     * Parses the statements and blocks nested in the given frame with an
+     * explicit stack of frames instead of recursion, so nesting depth is
+     * limited by the heap rather than the call stack.
+     * <p>
+     * Each frame is resumed with {@code null} when it is pushed and with the
+     * result of each nested frame once that completes, and returns either a
+     * nested frame to push or its own result. Statements without blocks are
+     * parsed directly by the enclosing block. When a rule fails, the frames
+     * are unwound as the recursive rules would: an enclosing block at the end
+     * of the input recovers with no statements, and every other enclosing
+     * block appends {@code " Invalid Block."} to the message.
+     */
+    private Object parseNested(Frame root) throws ParseException {
+        List<Frame> stack = new ArrayList<>();
+        stack.add(root);
+        Object value = null;
+        while (true) {
             try {
-                Ast.Expression Condition = parseExpression();
-                if (match("DO")) {
-                    List<Ast.Statement> DoBlock = parseBlock();
-                    if (match("END")) {
-                        return new Ast.Statement.While(Condition, DoBlock);
-                    } else {
-                        throw new ParseException("Expected while END.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
+                value = stack.get(stack.size() - 1).resume(value);
+            } catch (ParseException p) {
+                value = unwind(stack, p);
+                if (stack.isEmpty()) {
+                    return value;
+                }
+                continue;
+            }
+            if (value instanceof Frame) {
+                stack.add((Frame) value);
+                value = null;
+            } else {
+                stack.remove(stack.size() - 1);
+                if (stack.isEmpty()) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pops frames until a block recovers from the exception, returning the
+     * empty statements of that block, or rethrows it once the stack is empty.
+     */
+    private List<Ast.Statement> unwind(List<Frame> stack, ParseException exception) throws ParseException {
+        while (!stack.isEmpty()) {
+            if (stack.remove(stack.size() - 1) instanceof BlockFrame) {
+                if (!tokens.has(0)) {
+                    return new ArrayList<>();
+                }
+                exception = error(exception.getMessage() + " Invalid Block.", exception.getIndex());
+            }
+        }
+        throw exception;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Ast.Statement> statements(Object value) {
+        return (List<Ast.Statement>) value;
+    }
+
+    /**
+     * A rule which contains blocks, parsed by {@link #parseNested(Frame)}.
+     */
+    private abstract static class Frame {
+
+        /**
+         * Continues parsing with the result of the last nested frame, or
+         * {@code null} when first pushed, returning the next nested frame or
+         * the result of this rule.
+         */
+        abstract Object resume(Object value) throws ParseException;
+
+    }
+
+    /**
+     * Parses the {@code block} rule.
+     */
+    private final class BlockFrame extends Frame {
+
+        private final List<Ast.Statement> statements = new ArrayList<>();
+
+        @Override
+        Object resume(Object value) throws ParseException {
+            if (value != null) {
+                statements.add((Ast.Statement) value);
+            }
+            while (!peek(BLOCK_END)) {
+                Object statement = startStatement();
+                if (statement instanceof Frame) {
+                    return statement;
+                }
+                statements.add((Ast.Statement) statement);
+            }
+            return statements;
+        }
+
+    }
+
+    /**
+     * Parses {@code 'IF' expression 'DO' block ('ELSE' block)? 'END'}.
+     */
+    private final class IfFrame extends Frame {
+
+        private Ast.Expression condition;
+        private List<Ast.Statement> thenStatements;
+
+        @Override
+        Object resume(Object value) throws ParseException {
+            if (value == null) {
+                match(Token.Kind.IF);
+                condition = parseExpression();
+                if (!match(Token.Kind.DO)) {
+                    throw error("Expected if DO.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
+                }
+                return new BlockFrame();
+            } else if (thenStatements == null) {
+                thenStatements = statements(value);
+                if (match(Token.Kind.ELSE)) {
+                    return new BlockFrame();
+                } else if (match(Token.Kind.END)) {
+                    return new Ast.Statement.If(condition, thenStatements, new ArrayList<>());
+                }
+                throw error("Expected if END.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
+            } else if (match(Token.Kind.END)) {
+                return new Ast.Statement.If(condition, thenStatements, statements(value));
+            }
+            throw error("Expected if else END.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
+        }
+
+    }
+
+    /**
+     * Parses {@code 'SWITCH' expression ('CASE' ...)* 'DEFAULT' block 'END'}.
+     */
+    private final class SwitchFrame extends Frame {
+
+        private Ast.Expression condition;
+        private final List<Ast.Statement.Case> cases = new ArrayList<>();
+        private boolean defaulted = false;
+
+        @Override
+        Object resume(Object value) throws ParseException {
+            if (value == null) {
+                match(Token.Kind.SWITCH);
+                condition = parseExpression();
+            } else {
+                cases.add((Ast.Statement.Case) value);
+                if (defaulted) {
+                    if (match(Token.Kind.END)) {
+                        return new Ast.Statement.Switch(condition, cases);
                     }
-                } else {
-                    throw new ParseException("Expected while DO.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length()+1);
+                    throw error("Expected switch END.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
                 }
-            } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
             }
+            if (peek(Token.Kind.CASE)) {
+                return new CaseFrame();
+            } else if (peek(Token.Kind.DEFAULT)) {
+                defaulted = true;
+                return new CaseFrame();
+            }
+            throw error("Expected switch DEFAULT.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
+        }
+
+    }
+
+    /**
+     * Parses {@code 'CASE' expression ':' block} or {@code 'DEFAULT' block}.
+     */
+    private final class CaseFrame extends Frame {
+
+        private Optional<Ast.Expression> caseValue;
+
+        @Override
+        Object resume(Object value) throws ParseException {
+            if (value != null) {
+                return new Ast.Statement.Case(caseValue, statements(value));
+            } else if (match(Token.Kind.CASE)) {
+                caseValue = Optional.of(parseExpression());
+                if (!match(Token.Kind.COLON)) {
+                    throw error("Expected case :.", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+                }
+                return new BlockFrame();
+            } else if (match(Token.Kind.DEFAULT)) {
+                caseValue = Optional.empty();
+                return new BlockFrame();
+            }
+            throw error("Invalid parseCaseStatement.", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+        }
+
+    }
+
+    /**
+     * Parses {@code 'WHILE' expression 'DO' block 'END'}.
+     */
+    private final class WhileFrame extends Frame {
+
+        private Ast.Expression condition;
+
+        @Override
+        Object resume(Object value) throws ParseException {
+            if (value == null) {
+                match(Token.Kind.WHILE);
+                condition = parseExpression();
+                if (!match(Token.Kind.DO)) {
+                    throw error("Expected while DO.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
+                }
+                return new BlockFrame();
+            } else if (match(Token.Kind.END)) {
+                return new Ast.Statement.While(condition, statements(value));
+            }
+            throw error("Expected while END.", tokens.getIndex(-1) + tokens.getLiteral(-1).length()+1);
         }
-        throw new UnsupportedOperationException(); //TODO
+
     }
 
     /**
@@ -610,19 +835,19 @@ public final class Parser {
      */
     public Ast.Statement.Return parseReturnStatement() throws ParseException {
 
-        if (match("RETURN")) {
+        if (match(Token.Kind.RETURN)) {
             try {
                 Ast.Expression expression = parseExpression();
-                if (match(";")) {
+                if (match(Token.Kind.SEMICOLON)) {
                     return new Ast.Statement.Return(expression);
                 } else {
-                    throw new ParseException("Expected ;.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                    throw error("Expected ;.", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
                 }
             } catch (ParseException p) {
-                throw new ParseException(p.getMessage(), p.getIndex());
+                throw rethrow(p);
             }
         } else {
-            throw new ParseException("Invalid parseReturnStatement.", tokens.get(0).getIndex());
+            throw error("Invalid parseReturnStatement.", tokens.getIndex(0));
         }
 
     }
@@ -631,9 +856,7 @@ public final class Parser {
      * Parses the {@code expression} rule.
      */
     public Ast.Expression parseExpression() throws ParseException {
-        if (!tokens.has(0)) {
-            throw new ParseException("Expected expression.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-        }
+        expectExpression();
         return parseLogicalExpression();
 
 
@@ -643,255 +866,355 @@ public final class Parser {
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expression parseLogicalExpression() throws ParseException {
-        try {
-            Ast.Expression left = parseComparisonExpression();
-
-            while (match("&&") || match("||")) {
-                String operator = tokens.get(-1).getLiteral();
-                Ast.Expression right = parseComparisonExpression();
-                left = new Ast.Expression.Binary(operator, left, right);
-            }
-            return left;
-
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
-        }
-
-
+        return parseBinaryExpression(LOGICAL);
     }
 
     /**
      * Parses the {@code comparison-expression} rule.
      */
     public Ast.Expression parseComparisonExpression() throws ParseException {
-        try {
-            Ast.Expression left = parseAdditiveExpression();
-
-            while (match(">") || match("<") || match("==") || match(("!="))) {
-                String operator = tokens.get(-1).getLiteral();
-                Ast.Expression right = parseAdditiveExpression();
-                left = new Ast.Expression.Binary(operator, left, right);
-            }
-            return left;
-
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
-        }
+        return parseBinaryExpression(COMPARISON);
     }
 
     /**
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expression parseAdditiveExpression() throws ParseException {
-        try {
-            Ast.Expression left = parseMultiplicativeExpression();
+        return parseBinaryExpression(ADDITIVE);
+    }
 
-            while (match("+") || match("-")) {
-                String operator = tokens.get(-1).getLiteral();
-                Ast.Expression right = parseMultiplicativeExpression();
-                left = new Ast.Expression.Binary(operator, left, right);
-            }
-            return left;
+    /**
+     * Parses the {@code multiplicative-expression} rule.
+     */
+    public Ast.Expression parseMultiplicativeExpression() throws ParseException {
+        return parseBinaryExpression(MULTIPLICATIVE);
+    }
 
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+    /**
+     * Parses a binary expression whose operators all have at least the given
+     * precedence, producing the same left-associative {@link
+     * Ast.Expression.Binary} trees as one method per precedence level would.
+     * <p>
+     * This is a precedence-climbing parser driven by {@link #PRECEDENCE}, with
+     * explicit stacks instead of recursion: operands and pending operators are
+     * pushed, and operators are reduced once an operator of lower or equal
+     * precedence follows. Parenthesized expressions, function arguments and
+     * list indexes are handled on the same stacks, with {@code groups}
+     * holding the operator stack height at each opening token so reductions
+     * stop there until the matching closing token. Long operator chains and
+     * deep nesting therefore use no additional call depth.
+     */
+    private Ast.Expression parseBinaryExpression(int minimum) throws ParseException {
+        List<Ast.Expression> operands = new ArrayList<>();
+        List<Token.Kind> operators = new ArrayList<>();
+        List<Group> groups = new ArrayList<>();
+        while (true) {
+            Ast.Expression operand = null;
+            while (operand == null) {
+                if (tokens.getKind(0) == Token.Kind.LEFT_PAREN) {
+                    tokens.advance();
+                    groups.add(new Group(operators.size(), Token.Kind.RIGHT_PAREN, null, null));
+                    expectExpression();
+                } else if (peekNested()) {
+                    String identifier = tokens.getLiteral(0);
+                    tokens.advance();
+                    if (match(Token.Kind.LEFT_BRACKET)) {
+                        groups.add(new Group(operators.size(), Token.Kind.RIGHT_BRACKET, identifier, null));
+                        expectExpression();
+                    } else {
+                        tokens.advance();
+                        expectExpression();
+                        if (match(Token.Kind.RIGHT_PAREN)) {
+                            operand = new Ast.Expression.Function(identifier, new ArrayList<>());
+                        } else {
+                            groups.add(new Group(operators.size(), Token.Kind.RIGHT_PAREN, identifier, new ArrayList<>()));
+                        }
+                    }
+                } else {
+                    operand = parseOperand();
+                }
+            }
+            operands.add(operand);
+            while (true) {
+                Token.Kind kind = tokens.getKind(0);
+                int floor = groups.isEmpty() ? 0 : groups.get(groups.size() - 1).floor;
+                int precedence = PRECEDENCE[kind.ordinal()];
+                if (precedence >= (groups.isEmpty() ? minimum : LOGICAL)) {
+                    reduce(operands, operators, floor, precedence);
+                    tokens.advance();
+                    operators.add(kind);
+                    break;
+                }
+                reduce(operands, operators, floor, LOGICAL);
+                if (groups.isEmpty()) {
+                    return operands.get(0);
+                }
+                Group group = groups.get(groups.size() - 1);
+                if (group.arguments != null && kind == Token.Kind.COMMA) {
+                    tokens.advance();
+                    group.arguments.add(operands.remove(operands.size() - 1));
+                    if (peek(Token.Kind.RIGHT_PAREN)) {
+                        throw error("Expected expression.", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+                    }
+                    expectExpression();
+                    break;
+                }
+                if (kind != group.close) {
+                    String message = group.close == Token.Kind.RIGHT_PAREN ? "Expected ')'." : "Invalid call to list.";
+                    throw error(message, tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+                }
+                tokens.advance();
+                groups.remove(groups.size() - 1);
+                int top = operands.size() - 1;
+                if (group.identifier == null) {
+                    operands.set(top, new Ast.Expression.Group(operands.get(top)));
+                } else if (group.arguments != null) {
+                    group.arguments.add(operands.get(top));
+                    operands.set(top, new Ast.Expression.Function(group.identifier, group.arguments));
+                } else {
+                    operands.set(top, new Ast.Expression.Access(Optional.of(operands.get(top)), group.identifier));
+                }
+            }
         }
     }
 
     /**
-     * Parses the {@code multiplicative-expression} rule.
+     * Returns {@code true} if the next tokens start a function call or list
+     * access, which {@link #parseBinaryExpression(int)} parses on its stacks.
      */
-    public Ast.Expression parseMultiplicativeExpression() throws ParseException {
-        try {
+    private boolean peekNested() {
+        if (!tokens.has(1) || !peek(Token.Type.IDENTIFIER)) {
+            return false;
+        }
+        switch (tokens.getKind(0)) {
+            case NIL:
+            case TRUE:
+            case FALSE:
+                return false;
+        }
+        Token.Kind next = tokens.getKind(1);
+        return next == Token.Kind.LEFT_PAREN || next == Token.Kind.LEFT_BRACKET;
+    }
 
-            Ast.Expression left = parsePrimaryExpression();
+    private void expectExpression() throws ParseException {
+        if (!tokens.has(0)) {
+            throw error("Expected expression.", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
+        }
+    }
 
+    /**
+     * An unclosed parenthesized expression, function call or list access on
+     * the stacks of {@link #parseBinaryExpression(int)}.
+     */
+    private static final class Group {
 
-            while (match("*") || match("/") || match("^")) {
-                String operator = tokens.get(-1).getLiteral();
-                Ast.Expression right = parsePrimaryExpression();
-                left = new Ast.Expression.Binary(operator, left, right);
-            }
+        /**
+         * The height of the operator stack when the group was opened.
+         */
+        private final int floor;
+        private final Token.Kind close;
+        /**
+         * The name of the function or list, or {@code null} for parentheses.
+         */
+        private final String identifier;
+        /**
+         * The arguments parsed so far for function calls, otherwise {@code null}.
+         */
+        private final List<Ast.Expression> arguments;
 
-            return left;
+        private Group(int floor, Token.Kind close, String identifier, List<Ast.Expression> arguments) {
+            this.floor = floor;
+            this.close = close;
+            this.identifier = identifier;
+            this.arguments = arguments;
+        }
 
+    }
 
-        } catch (ParseException p) {
-            throw new ParseException(p.getMessage(), p.getIndex());
+    /**
+     * Combines the operators above {@code floor} on the stack with at least
+     * the given precedence into binary expressions, as all operators are left
+     * associative.
+     */
+    private static void reduce(List<Ast.Expression> operands, List<Token.Kind> operators, int floor, int precedence) {
+        while (operators.size() > floor && PRECEDENCE[operators.get(operators.size() - 1).ordinal()] >= precedence) {
+            Token.Kind operator = operators.remove(operators.size() - 1);
+            Ast.Expression right = operands.remove(operands.size() - 1);
+            int top = operands.size() - 1;
+            operands.set(top, new Ast.Expression.Binary(OPERATORS[operator.ordinal()], operands.get(top), right));
         }
     }
 
     /**
      * Parses the {@code primary-expression} rule. This is the top-level rule
      * for expressions and includes literal values, grouping, variables, and
-     * functions. It may be helpful to break these up into other methods but is
-     * not strictly necessary.
+     * functions. Grouping, function calls and list accesses contain other
+     * expressions and are parsed on the stacks of {@link
+     * #parseBinaryExpression(int)}, so deep nesting does not recurse.
      */
     public Ast.Expression parsePrimaryExpression() throws ParseException {
+        if (peek(Token.Kind.LEFT_PAREN) || peekNested()) {
+            return parseBinaryExpression(PRIMARY);
+        }
+        return parseOperand();
+    }
+
+    /**
+     * Parses a primary expression which contains no other expression, which
+     * is a literal or a variable.
+     */
+    private Ast.Expression parseOperand() throws ParseException {
         if (tokens.has(0)) {
-            if (match("NIL")) {
-                Ast.Expression.Literal lit = new Ast.Expression.Literal(null);
-                lit.setType(Environment.Type.NIL);
-                return lit;
-            } else if (match("TRUE")) {
-                Ast.Expression.Literal lit = new Ast.Expression.Literal(Boolean.TRUE);
-                lit.setType(Environment.Type.BOOLEAN);
-                return lit;
-            } else if (match("FALSE")) {
-                Ast.Expression.Literal lit = new Ast.Expression.Literal(Boolean.FALSE);
-                lit.setType(Environment.Type.BOOLEAN);
-                return lit;
-            } else if (match(Token.Type.INTEGER)) {
-                Ast.Expression.Literal lit = new Ast.Expression.Literal(new BigInteger(tokens.get(-1).getLiteral()));
+            switch (tokens.getKind(0)) {
+                case NIL: {
+                    tokens.advance();
+                    Ast.Expression.Literal lit = new Ast.Expression.Literal(null);
+                    lit.setType(Environment.Type.NIL);
+                    return lit;
+                }
+                case TRUE: {
+                    tokens.advance();
+                    Ast.Expression.Literal lit = new Ast.Expression.Literal(Boolean.TRUE);
+                    lit.setType(Environment.Type.BOOLEAN);
+                    return lit;
+                }
+                case FALSE: {
+                    tokens.advance();
+                    Ast.Expression.Literal lit = new Ast.Expression.Literal(Boolean.FALSE);
+                    lit.setType(Environment.Type.BOOLEAN);
+                    return lit;
+                }
+            }
+            if (match(Token.Type.INTEGER)) {
+                Ast.Expression.Literal lit = new Ast.Expression.Literal(tokens.getValue(-1));
                 lit.setType(Environment.Type.INTEGER);
                 return lit;
             } else if (match(Token.Type.DECIMAL)) {
-                Ast.Expression.Literal lit = new Ast.Expression.Literal(new BigDecimal(tokens.get(-1).getLiteral()));
+                Ast.Expression.Literal lit = new Ast.Expression.Literal(tokens.getValue(-1));
                 lit.setType(Environment.Type.DECIMAL);
                 return lit;
             } else if (match(Token.Type.CHARACTER)) {
-                String found = tokens.get(-1).getLiteral();
-                return new Ast.Expression.Literal(found.charAt(1));
-            } else if (match(Token.Type.STRING)) {
-                String found = tokens.get(-1).getLiteral();
-                found = found.substring(1, found.length() - 1);
-
-                if (found.contains("\\")) {
-                    // need to replace the whitespace/escape characters in the string
-                    found = found.replace("\\b", "\b").replace("\\n", "\n").replace("\\r", "\r").replace("\\t", "\t").replace("\\'", "'").replace("\\\"", "\"").replace("\\\\", "\\");
+                Object found = tokens.getValue(-1);
+                if (found == null) {
+                    throw error("Invalid character literal.", tokens.getIndex(-1));
                 }
-                // TODO: need to implement specific whitespace properties
+                return new Ast.Expression.Literal(found);
+            } else if (match(Token.Type.STRING)) {
+                // quotes removed and escapes decoded by the lexer
+                Object found = tokens.getValue(-1);
                 Ast.Expression.Literal lit = new Ast.Expression.Literal(found);
                 lit.setType(Environment.Type.STRING);
                 return lit;
-            } else if (match("(")) {
-                Ast.Expression grouped = parseExpression();
-                if (!match(")")) {
-                    throw new ParseException("Expected ')'.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                }
-
-                return new Ast.Expression.Group(grouped);
             } else if (match(Token.Type.IDENTIFIER)) {
-                String identifier = tokens.get(-1).getLiteral();
-                // Function Call
-                if (peek("(")) {
-                    match("(");
-                    List<Ast.Expression> arguments = new ArrayList<>();
-
-
-                    if (!tokens.has(0)) {
-                        throw new ParseException("Expected expression.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                    }
-                    if (!peek(")")) {
-                        try {
-                            arguments.add(parseExpression());
-                            while (match(",")) {
-                                if (peek(")")) {
-                                    throw new ParseException("Expected expression.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                                }
-                                arguments.add(parseExpression());
-                            }
-                        } catch (ParseException p) {
-                            throw new ParseException(p.getMessage(), p.getIndex());
-                        }
-                    }
-
-                    if (!match(")")) {
-                        throw new ParseException("Expected ')'.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                    }
-                    return new Ast.Expression.Function(identifier, arguments);
-
-                } else if (peek("[")) {
-                    match("[");
-                    Ast.Expression index = parseExpression();
-                    if (!match("]")) {
-                        throw new ParseException("Invalid call to list.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                    }
-                    return new Ast.Expression.Access(Optional.of(index), identifier);
-                } else if (!match("(") && !match("[")) {
-
-                    return new Ast.Expression.Access(Optional.empty(), identifier);
-
-                } else {
-                    throw new ParseException("Invalid identifier call", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
-                }
-           /* TODO: look for the following
-                identifier ('(' (expression (',' expression)*)? ')')? |
-                identifier '[' expression ']'
-            */
+                return new Ast.Expression.Access(Optional.empty(), tokens.getLiteral(-1));
             } else {
-                throw new ParseException("Invalid expression.", tokens.get(0).getIndex());
+                throw error("Invalid expression.", tokens.getIndex(0));
             }
         } else {
             if (tokens.has(-1)) {
-                throw new ParseException("Expected Ast.Expression.", tokens.get(-1).getIndex() + tokens.get(-1).getLiteral().length());
+                throw error("Expected Ast.Expression.", tokens.getIndex(-1) + tokens.getLiteral(-1).length());
             } else {
-                throw new ParseException("Invalid TokenStream", 0);
+                throw error("Invalid TokenStream", 0);
             }
         }
     }
 
+    private ParseException error(String message, int index) {
+        return new ParseException(message, index, !stackless);
+    }
+
     /**
-     * As in the lexer, returns {@code true} if the current sequence of tokens
-     * matches the given patterns. Unlike the lexer, the pattern is not a regex;
-     * instead it is either a {@link Token.Type}, which matches if the token's
-     * type is the same, or a {@link String}, which matches if the token's
-     * literal is the same.
-     * <p>
-     * In other words, {@code Token(IDENTIFIER, "literal")} is matched by both
-     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}.
+     * Returns an exception to rethrow for one caught from a nested rule. This
+     * is a copy of it unless the parser is stackless, in which case it is the
+     * same exception.
      */
-    private boolean peek(Object... patterns) {
+    private ParseException rethrow(ParseException exception) {
+        return stackless ? exception : new ParseException(exception.getMessage(), exception.getIndex());
+    }
 
-        for (int i = 0; i < patterns.length; i++) {
-            if (!tokens.has(i)) {
-                return false;
-            } else if (patterns[i] instanceof Token.Type) {
-                if (patterns[i] != tokens.get(i).getType()) {
-                    return false;
-                }
-            } else if (patterns[i] instanceof String) {
-                if (!patterns[i].equals(tokens.get(i).getLiteral())) {
-                    return false;
-                }
-            } else {
-                throw new ParseException("Invalid Pattern: " + patterns[i].getClass(), i);
-            }
-        }
+    private static void operator(Token.Kind kind, String literal, int precedence) {
+        PRECEDENCE[kind.ordinal()] = precedence;
+        OPERATORS[kind.ordinal()] = literal;
+    }
 
-        return true;
+    /*
+     * As in the lexer, peek returns {@code true} if the next token matches the
+     * pattern, and match also advances the token stream. A pattern is either a
+     * {@link Token.Kind}, which is used for all keywords and operators, or a
+     * {@link Token.Type}. Both compare the precomputed kind or type of the
+     * token rather than its literal.
+     */
+
+    private boolean peek(Token.Kind kind) {
+        return tokens.getKind(0) == kind;
+    }
+
+    private boolean peek(Token.Type type) {
+        return tokens.has(0) && tokens.getType(0) == type;
     }
 
     /**
-     * As in the lexer, returns {@code true} if {@link #peek(Object...)} is true
-     * and advances the token stream.
+     * Returns {@code true} if the kind of the next token is in the set, which
+     * should be one of the constant sets such as {@link #BLOCK_END}.
      */
-    private boolean match(Object... patterns) {
+    private boolean peek(Set<Token.Kind> kinds) {
+        return kinds.contains(tokens.getKind(0));
+    }
 
-//        System.out.println("TEST == " + patterns.);
-        boolean peek = peek(patterns);
-        if (peek) {
-            for (int i = 0; i < patterns.length; i++) {
-//                System.out.println("TEST -- " + tokens.get(i));
-                tokens.advance();
-            }
+    private boolean match(Token.Kind kind) {
+        if (peek(kind)) {
+            tokens.advance();
+            return true;
         }
-        return peek;
+        return false;
+    }
+
+    private boolean match(Token.Type type) {
+        if (peek(type)) {
+            tokens.advance();
+            return true;
+        }
+        return false;
     }
 
     private static final class TokenStream {
 
         private final List<Token> tokens;
+        private final Iterator<Token> source;
+        private final TokenBuffer buffer;
+        private final boolean owned;
         private int index = 0;
 
-        private TokenStream(List<Token> tokens) {
+        /**
+         * Creates a stream over the list, followed by the tokens of the source
+         * iterator. The stream may remove consumed tokens from the list if it
+         * is owned by the stream.
+         */
+        private TokenStream(List<Token> tokens, Iterator<Token> source, boolean owned) {
             this.tokens = tokens;
+            this.source = source;
+            this.buffer = null;
+            this.owned = owned;
+        }
+
+        private TokenStream(TokenBuffer buffer) {
+            this.tokens = null;
+            this.source = null;
+            this.buffer = buffer;
+            this.owned = false;
         }
 
         /**
-         * Returns true if there is a token at index + offset.
+         * Returns true if there is a token at index + offset, pulling tokens
+         * from the source iterator as needed.
          */
         public boolean has(int offset) {
+            if (buffer != null) {
+                return index + offset < buffer.size();
+            }
+            while (index + offset >= tokens.size() && source.hasNext()) {
+                tokens.add(source.next());
+            }
             return index + offset < tokens.size();
         }
 
@@ -899,9 +1222,53 @@ public final class Parser {
          * Gets the token at index + offset.
          */
         public Token get(int offset) {
+            if (buffer != null) {
+                return buffer.get(index + offset);
+            } else if (index + offset >= tokens.size()) {
+                has(offset);
+            }
             return tokens.get(index + offset);
         }
 
+        /**
+         * Gets the type of the token at index + offset.
+         */
+        public Token.Type getType(int offset) {
+            return buffer != null ? buffer.getType(index + offset) : get(offset).getType();
+        }
+
+        /**
+         * Gets the kind of the token at index + offset, or
+         * {@link Token.Kind#NONE} if there is no such token.
+         */
+        public Token.Kind getKind(int offset) {
+            if (!has(offset)) {
+                return Token.Kind.NONE;
+            }
+            return buffer != null ? buffer.getKind(index + offset) : get(offset).getKind();
+        }
+
+        /**
+         * Gets the literal of the token at index + offset.
+         */
+        public String getLiteral(int offset) {
+            return buffer != null ? buffer.getLiteral(index + offset) : get(offset).getLiteral();
+        }
+
+        /**
+         * Gets the decoded value of the literal token at index + offset.
+         */
+        public Object getValue(int offset) {
+            return buffer != null ? buffer.getValue(index + offset) : get(offset).getValue();
+        }
+
+        /**
+         * Gets the source index of the token at index + offset.
+         */
+        public int getIndex(int offset) {
+            return buffer != null ? buffer.getIndex(index + offset) : get(offset).getIndex();
+        }
+
         /**
          * Advances to the next token, incrementing the index.
          */
@@ -909,6 +1276,18 @@ public final class Parser {
             index++;
         }
 
+        /**
+         * Discards the tokens pulled from the source iterator before the
+         * previous token, which is kept for error messages. Tokens passed to
+         * the parser as a list are never discarded.
+         */
+        public void discard() {
+            if (owned && index > 1) {
+                tokens.subList(0, index - 1).clear();
+                index = 1;
+            }
+        }
+
     }
 
-}
\ No newline at end of file
+}
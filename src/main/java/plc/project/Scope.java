@@ -5,12 +5,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public final class Scope {
 
     private final Scope parent;
     private final Map<String, Environment.Variable> variables = new HashMap<>();
-    private final Map<String, Environment.Function> functions = new HashMap<>();
+    private final Map<String, Map<Integer, Environment.Function>> functions = new HashMap<>();
 
     public Scope(Scope parent) {
         this.parent = parent;
@@ -53,18 +54,22 @@ public final class Scope {
     }
 
     public Environment.Function defineFunction(String name, String jvmName, List<Environment.Type> parameterTypes, Environment.Type returnType, java.util.function.Function<List<Environment.PlcObject>, Environment.PlcObject> function) {
-        if (functions.containsKey(name + "/" + parameterTypes.size())) {
+        Map<Integer, Environment.Function> overloads = functions.computeIfAbsent(name, k -> new HashMap<>());
+        if (overloads.containsKey(parameterTypes.size())) {
             throw new RuntimeException("The function " + name + "/" + parameterTypes.size() + " is already defined in this scope.");
         } else {
             Environment.Function func = new Environment.Function(name, jvmName, parameterTypes, returnType, function);
-            functions.put(func.getName() + "/" + func.getParameterTypes().size(), func);
+            overloads.put(func.getParameterTypes().size(), func);
             return func;
         }
     }
 
     public Environment.Function lookupFunction(String name, int arity) {
-        if (functions.containsKey(name + "/" + arity)) {
-            return functions.get(name + "/" + arity);
+        // functions are keyed by name then arity, so lookups never build a
+        // "name/arity" string
+        Map<Integer, Environment.Function> overloads = functions.get(name);
+        if (overloads != null && overloads.containsKey(arity)) {
+            return overloads.get(arity);
         } else if (parent != null) {
             return parent.lookupFunction(name, arity);
         } else {
@@ -77,7 +82,9 @@ public final class Scope {
         return "Scope{" +
                 "parent=" + parent +
                 ", variables=" + variables.keySet() +
-                ", functions=" + functions.keySet() +
+                ", functions=" + functions.entrySet().stream()
+                        .flatMap(entry -> entry.getValue().keySet().stream().map(arity -> entry.getKey() + "/" + arity))
+                        .collect(Collectors.toList()) +
                 '}';
     }
 
@@ -0,0 +1,140 @@
+package plc.project;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Lexes a {@link Reader} (or {@link ReadableByteChannel}) lazily through a
+ * bounded buffer, so the source never has to be held in memory as a single
+ * {@link String}. Tokens are produced one at a time by {@link #next()} using
+ * the same rules as {@link TableLexer}, and their indexes are absolute offsets
+ * into the whole input.
+ *
+ * The buffer only grows beyond its initial capacity if a single token is
+ * larger than it.
+ */
+public final class StreamingLexer implements Iterator<Token> {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    /**
+     * The maximum number of characters the lexer rules look past the end of
+     * a token (a {@code -} followed by {@code 0.}). A token that ends closer
+     * than this to the end of the buffer is lexed again after a refill.
+     */
+    private static final int LOOKAHEAD = 3;
+
+    private final Reader reader;
+    private char[] buffer;
+    private int limit = 0;
+    private int offset = 0;
+    private boolean eof = false;
+    private TableLexer lexer;
+    private Token next = null;
+
+    public StreamingLexer(Reader reader) {
+        this(reader, DEFAULT_CAPACITY);
+    }
+
+    public StreamingLexer(Reader reader, int capacity) {
+        if (capacity < LOOKAHEAD + 1) {
+            throw new IllegalArgumentException("Buffer capacity must be at least " + (LOOKAHEAD + 1) + ".");
+        }
+        this.reader = reader;
+        this.buffer = new char[capacity];
+        this.lexer = new TableLexer(CharBuffer.wrap(buffer, 0, 0), 0, 0);
+    }
+
+    public StreamingLexer(ReadableByteChannel channel, Charset charset) {
+        this(Channels.newReader(channel, charset.newDecoder(), -1));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null) {
+            next = advance();
+        }
+        return next != null;
+    }
+
+    @Override
+    public Token next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Token token = next;
+        next = null;
+        return token;
+    }
+
+    public Spliterator<Token> spliterator() {
+        return Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL);
+    }
+
+    /**
+     * Lexes the next token, refilling the buffer whenever the result could
+     * depend on characters that have not been read yet. Returns {@code null}
+     * at the end of the input.
+     */
+    private Token advance() {
+        while (true) {
+            if (!lexer.skipWhitespace()) {
+                if (eof) {
+                    return null;
+                }
+                refill(lexer.getIndex());
+                continue;
+            }
+            int start = lexer.getIndex();
+            try {
+                Token token = lexer.lexToken();
+                if (eof || lexer.getIndex() + LOOKAHEAD <= limit) {
+                    return token;
+                }
+            } catch (ParseException e) {
+                if (eof || lexer.getIndex() + LOOKAHEAD <= limit) {
+                    throw e;
+                }
+            }
+            refill(start);
+        }
+    }
+
+    /**
+     * Discards the buffer before {@code keep}, reads as much input as fits
+     * and restarts the lexer at {@code keep}.
+     */
+    private void refill(int keep) {
+        System.arraycopy(buffer, keep, buffer, 0, limit - keep);
+        offset += keep;
+        limit -= keep;
+        if (limit == buffer.length) {
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+        try {
+            while (limit < buffer.length) {
+                int read = reader.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    eof = true;
+                    break;
+                }
+                limit += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lexer = new TableLexer(CharBuffer.wrap(buffer, 0, limit), 0, offset);
+    }
+
+}
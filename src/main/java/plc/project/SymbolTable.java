@@ -0,0 +1,143 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifier text into dense integer ids, shared across the lexing of
+ * an entire compilation. Each id maps to one canonical {@link String}, so
+ * every occurrence of an identifier shares a single instance whose hash code
+ * is computed once and whose {@code equals} succeeds on identity.
+ *
+ * The ids are carried by identifier tokens from the {@link TableLexer} and
+ * stored in a {@link TokenBuffer}, which returns the canonical name as the
+ * literal instead of copying it from the source. The {@link Parser} does not
+ * use them, since it dispatches on {@link Token.Kind}. The keywords are
+ * interned first, so their ids are the indexes into {@link #KEYWORDS}, which
+ * lists them in the same order as their {@link Token.Kind}s.
+ *
+ * This class is not thread safe.
+ */
+public final class SymbolTable {
+
+    public static final String[] KEYWORDS = {
+            "LIST", "VAR", "VAL", "FUN", "DO", "END", "ELSE", "DEFAULT", "CASE",
+            "LET", "SWITCH", "IF", "WHILE", "RETURN", "NIL", "TRUE", "FALSE"
+    };
+
+    private String[] names = new String[64];
+    private int[] hashes = new int[64];
+    private int[] slots = new int[128];
+    private int size = 0;
+
+    public SymbolTable() {
+        for (String keyword : KEYWORDS) {
+            intern(keyword);
+        }
+    }
+
+    /**
+     * Returns the id of the given name, interning it if necessary.
+     */
+    public int intern(String name) {
+        return intern(name, 0, name.length());
+    }
+
+    /**
+     * Returns the id of the slice of {@code source} starting at {@code start},
+     * interning it if necessary. The slice is only copied if it has not been
+     * interned before.
+     */
+    public int intern(CharSequence source, int start, int length) {
+        int hash = hash(source, start, length);
+        int slot = find(source, start, length, hash);
+        if (slots[slot] != 0) {
+            return slots[slot] - 1;
+        }
+        String name = source instanceof String && start == 0 && length == source.length()
+                ? (String) source
+                : source.subSequence(start, start + length).toString();
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        names[size] = name;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return size - 1;
+    }
+
+    /**
+     * Returns the id of the given name, or {@code -1} if it is not interned.
+     */
+    public int lookup(String name) {
+        int slot = find(name, 0, name.length(), hash(name, 0, name.length()));
+        return slots[slot] - 1;
+    }
+
+    public String getName(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Unknown symbol " + id + ".");
+        }
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(CharSequence source, int start, int length, int hash) {
+        int mask = slots.length - 1;
+        int slot = mix(hash) & mask;
+        while (slots[slot] != 0) {
+            int id = slots[slot] - 1;
+            if (hashes[id] == hash && matches(names[id], source, start, length)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = mix(hashes[id]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Computes the same hash as {@link String#hashCode()} for the slice.
+     */
+    private static int hash(CharSequence source, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + source.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence source, int start, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != source.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,440 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table-driven implementation of the lexer rules in {@link Lexer}. Instead
+ * of compiling a regex for every character that is peeked, each ASCII
+ * character is classified once into {@link #CLASSES} and the start of every
+ * token is dispatched through {@link #START}.
+ *
+ * Runs of whitespace and the plain contents of string literals are skipped
+ * in bulk, eight characters at a time when the input is a
+ * {@link MappedSource}.
+ *
+ * The values of literals are decoded while they are validated: numbers are
+ * accumulated digit by digit (an integer which fits in a {@code long} stays
+ * unboxed) and string escapes are decoded in the same scan, so the parser
+ * does not have to read the literal again. See {@link Token#getValue()}.
+ *
+ * The produced tokens (and thrown {@link ParseException}s) are identical to
+ * the ones produced by {@link Lexer#lexRegex()}, which is kept as the
+ * reference implementation.
+ */
+public final class TableLexer {
+
+    private static final int WHITESPACE = 1;
+    private static final int IDENTIFIER_START = 2;
+    private static final int IDENTIFIER_PART = 4;
+    private static final int DIGIT = 8;
+    private static final int ESCAPE = 16;
+    private static final int LINE_TERMINATOR = 32;
+    private static final int STRING_BREAK = 64;
+
+    private static final int RULE_OPERATOR = 0;
+    private static final int RULE_IDENTIFIER = 1;
+    private static final int RULE_NUMBER = 2;
+    private static final int RULE_CHARACTER = 3;
+    private static final int RULE_STRING = 4;
+
+    private static final byte[] CLASSES = new byte[128];
+    private static final byte[] START = new byte[128];
+
+    static {
+        for (char c : new char[] {' ', '\b', '\t', '\r', '\n', '\\'}) {
+            CLASSES[c] |= WHITESPACE;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            CLASSES[c] |= IDENTIFIER_START | IDENTIFIER_PART;
+            CLASSES[Character.toLowerCase(c)] |= IDENTIFIER_START | IDENTIFIER_PART;
+        }
+        CLASSES['@'] |= IDENTIFIER_START;
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] |= DIGIT | IDENTIFIER_PART;
+        }
+        CLASSES['_'] |= IDENTIFIER_PART;
+        CLASSES['-'] |= IDENTIFIER_PART;
+        for (char c : new char[] {'b', 'n', 'r', 't', '\'', '"', '\\'}) {
+            CLASSES[c] |= ESCAPE;
+        }
+        CLASSES['\n'] |= LINE_TERMINATOR;
+        CLASSES['\r'] |= LINE_TERMINATOR;
+        for (char c : new char[] {'"', '\\', '\n', '\r'}) {
+            CLASSES[c] |= STRING_BREAK;
+        }
+
+        for (int c = 0; c < 128; c++) {
+            if ((CLASSES[c] & IDENTIFIER_START) != 0) {
+                START[c] = RULE_IDENTIFIER;
+            } else if ((CLASSES[c] & DIGIT) != 0 || c == '-') {
+                START[c] = RULE_NUMBER;
+            } else if (c == '\'') {
+                START[c] = RULE_CHARACTER;
+            } else if (c == '"') {
+                START[c] = RULE_STRING;
+            } else {
+                START[c] = RULE_OPERATOR;
+            }
+        }
+    }
+
+    private final CharSequence input;
+    private final MappedSource mapped;
+    private final int length;
+    private final int offset;
+    private final boolean window;
+    private final SymbolTable symbols;
+    private int index;
+    private boolean decoding = true;
+
+    /**
+     * The value of the last number, accumulated as a negative number so that
+     * {@link Long#MIN_VALUE} can be represented, and whether it overflowed.
+     */
+    private long digits;
+    private boolean overflow;
+    private long integer;
+    private Object value;
+
+    public TableLexer(CharSequence input) {
+        this(input, 0);
+    }
+
+    /**
+     * Creates a lexer over the whole source, such as a {@link String} or a
+     * {@link MappedSource}. Tokens reference slices of the input instead of
+     * copying their literals, so the input must not be modified afterwards.
+     */
+    public TableLexer(CharSequence input, int index) {
+        this(input, index, null);
+    }
+
+    /**
+     * Creates a lexer over the whole source which interns identifiers into
+     * the given {@link SymbolTable}, if it is not {@code null}. Identifier
+     * tokens then carry their symbol id and canonical name.
+     */
+    public TableLexer(CharSequence input, int index, SymbolTable symbols) {
+        this(input, index, 0, false, symbols);
+    }
+
+    /**
+     * Creates a lexer over a window of a larger source, where {@code offset}
+     * is the absolute index of the first character of {@code input}. Token
+     * and exception indexes are reported as absolute indexes, and literals
+     * are copied since the window may be reused.
+     */
+    public TableLexer(CharSequence input, int index, int offset) {
+        this(input, index, offset, true, null);
+    }
+
+    private TableLexer(CharSequence input, int index, int offset, boolean window, SymbolTable symbols) {
+        this.input = input;
+        this.mapped = input instanceof MappedSource ? (MappedSource) input : null;
+        this.length = input.length();
+        this.offset = offset;
+        this.window = window;
+        this.symbols = symbols;
+        this.index = index;
+    }
+
+    /**
+     * Lexes the remaining input, skipping whitespace between tokens.
+     */
+    public List<Token> lex() {
+        List<Token> tokens = new ArrayList<>();
+        while (skipWhitespace()) {
+            tokens.add(lexToken());
+        }
+        return tokens;
+    }
+
+    /**
+     * Advances past any whitespace, returning true if there is another token
+     * to lex.
+     */
+    public boolean skipWhitespace() {
+        if (mapped != null) {
+            while (true) {
+                index = mapped.indexOfNonSpace(index);
+                if (index == length || !is(input.charAt(index), WHITESPACE)) {
+                    break;
+                }
+                index++;
+            }
+        } else {
+            while (index < length && is(input.charAt(index), WHITESPACE)) {
+                index++;
+            }
+        }
+        return index < length;
+    }
+
+    /**
+     * Lexes the remaining input into a {@link TokenBuffer}, which stores the
+     * tokens in primitive arrays instead of creating a {@link Token} for each.
+     */
+    public TokenBuffer lexBuffer() {
+        if (window) {
+            throw new IllegalStateException("A window cannot be lexed into a TokenBuffer.");
+        }
+        TokenBuffer buffer = new TokenBuffer(input, symbols);
+        decoding = false;
+        while (skipWhitespace()) {
+            int start = index;
+            Token.Type type = lexType();
+            if (type == Token.Type.IDENTIFIER && symbols != null) {
+                buffer.add(type, start, index - start, symbols.intern(input, start, index - start));
+            } else {
+                buffer.add(type, start, index - start);
+            }
+        }
+        return buffer;
+    }
+
+    /**
+     * Lexes the token starting at the current index, which must not be
+     * whitespace.
+     */
+    public Token lexToken() {
+        int start = index;
+        return emit(lexType(), start);
+    }
+
+    private Token.Type lexType() {
+        value = null;
+        char c = input.charAt(index);
+        switch (c < 128 ? START[c] : RULE_OPERATOR) {
+            case RULE_IDENTIFIER:
+                return lexIdentifier();
+            case RULE_NUMBER:
+                return lexNumber();
+            case RULE_CHARACTER:
+                return lexCharacter();
+            case RULE_STRING:
+                return lexString();
+            default:
+                return lexOperator();
+        }
+    }
+
+    /**
+     * Returns the current index relative to the start of the input.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    private Token.Type lexIdentifier() {
+        index++;
+        while (index < length && is(input.charAt(index), IDENTIFIER_PART)) {
+            index++;
+        }
+        return Token.Type.IDENTIFIER;
+    }
+
+    /**
+     * Mirrors the (intentionally quirky) lookahead of {@link Lexer#lexNumber()}:
+     * a {@code -} only starts a number when followed by a digit, and {@code -0}
+     * only does so when it continues into a decimal or is followed by exactly
+     * one more character.
+     */
+    private Token.Type lexNumber() {
+        int start = index;
+        boolean negative = input.charAt(index) == '-';
+        if (negative) {
+            index++;
+            if (!has(0) || !is(get(0), DIGIT)) {
+                return Token.Type.OPERATOR;
+            } else if (get(0) == '0') {
+                if (!has(1) || has(2) && !(get(1) == '.' && is(get(2), DIGIT))) {
+                    return Token.Type.OPERATOR;
+                }
+            }
+        }
+        digits = 0;
+        overflow = false;
+        if (get(0) == '0') {
+            index++;
+        } else {
+            while (has(0) && is(get(0), DIGIT)) {
+                digit(get(0));
+                index++;
+            }
+        }
+        if (has(1) && get(0) == '.' && is(get(1), DIGIT)) {
+            index++;
+            int scale = 0;
+            while (has(0) && is(get(0), DIGIT)) {
+                digit(get(0));
+                scale++;
+                index++;
+            }
+            if (decoding) {
+                value = number(negative)
+                        ? BigDecimal.valueOf(negative ? digits : -digits, scale)
+                        : new BigDecimal(input.subSequence(start, index).toString());
+            }
+            return Token.Type.DECIMAL;
+        }
+        if (number(negative)) {
+            integer = negative ? digits : -digits;
+        } else if (decoding) {
+            value = new BigInteger(input.subSequence(start, index).toString());
+        }
+        return Token.Type.INTEGER;
+    }
+
+    private void digit(char c) {
+        int digit = c - '0';
+        if (digits < (Long.MIN_VALUE + digit) / 10) {
+            overflow = true;
+        } else {
+            digits = digits * 10 - digit;
+        }
+    }
+
+    /**
+     * Returns true if the accumulated number fits in a {@code long}.
+     */
+    private boolean number(boolean negative) {
+        return !overflow && (negative || digits != Long.MIN_VALUE);
+    }
+
+    private Token.Type lexCharacter() {
+        index++;
+        if (!has(0)) {
+            return Token.Type.CHARACTER;
+        }
+        char c = get(0);
+        if (c == '\\') {
+            index++;
+            if (!has(0) || !is(get(0), ESCAPE)) {
+                throw error(index);
+            }
+            value = Literals.escape(get(0));
+            index++;
+        } else if (c == '\'') {
+            throw error(index);
+        } else if (!isLineTerminator(c)) {
+            value = c;
+            index++;
+        }
+        if (!has(0) || get(0) != '\'') {
+            throw error(index);
+        }
+        index++;
+        return Token.Type.CHARACTER;
+    }
+
+    private Token.Type lexString() {
+        index++;
+        int plain = index;
+        StringBuilder builder = null;
+        while (true) {
+            index = indexOfStringBreak(index);
+            if (!has(0)) {
+                throw error(index);
+            }
+            char c = get(0);
+            if (c == '"') {
+                break;
+            } else if (c == '\\') {
+                index++;
+                if (!has(0) || !is(get(0), ESCAPE)) {
+                    throw error(index);
+                }
+                if (decoding) {
+                    if (builder == null) {
+                        builder = new StringBuilder();
+                    }
+                    builder.append(input, plain, index - 1).append(Literals.escape(get(0)));
+                    plain = index + 1;
+                }
+            } else {
+                throw error(index + 1);
+            }
+            index++;
+        }
+        if (decoding) {
+            value = builder == null
+                    ? input.subSequence(plain, index).toString()
+                    : builder.append(input, plain, index).toString();
+        }
+        index++;
+        return Token.Type.STRING;
+    }
+
+    /**
+     * Returns the index of the first quote, backslash or line terminator at or
+     * after {@code index}, which are the only characters that end the plain
+     * contents of a string literal.
+     */
+    private int indexOfStringBreak(int index) {
+        if (mapped != null) {
+            return mapped.indexOfStringBreak(index);
+        }
+        while (index < length && !is(input.charAt(index), STRING_BREAK)) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * As in {@link Lexer#lexOperator()}, only {@code !=}, {@code ==},
+     * {@code &&} and {@code ||} are lexed as two character operators.
+     */
+    private Token.Type lexOperator() {
+        char c = input.charAt(index++);
+        if ((c == '!' || c == '=' || c == '&' || c == '|') && has(0)) {
+            if (get(0) == (c == '&' || c == '|' ? c : '=')) {
+                index++;
+            }
+        }
+        return Token.Type.OPERATOR;
+    }
+
+    private boolean has(int offset) {
+        return index + offset < length;
+    }
+
+    private char get(int offset) {
+        return input.charAt(index + offset);
+    }
+
+    private Token emit(Token.Type type, int start) {
+        if (type == Token.Type.IDENTIFIER && symbols != null) {
+            int symbol = symbols.intern(input, start, index - start);
+            return new Token(type, symbols.getName(symbol), offset + start, symbol);
+        } else if (window) {
+            String literal = input.subSequence(start, index).toString();
+            return new Token(type, literal, 0, literal.length(), offset + start, integer, value);
+        }
+        return new Token(type, input, start, index - start, start, integer, value);
+    }
+
+    /**
+     * As in {@link Lexer}, the message of the exception is the input when it
+     * is a {@link String}. Other inputs may be far too large to copy.
+     */
+    private ParseException error(int index) {
+        String message = input instanceof String ? (String) input : "Invalid token.";
+        return new ParseException(message, offset + index);
+    }
+
+    private static boolean is(char c, int clazz) {
+        return c < 128 && (CLASSES[c] & clazz) != 0;
+    }
+
+    /**
+     * Characters not matched by the regex {@code .}, which the character rule
+     * uses for the literal's contents.
+     */
+    private static boolean isLineTerminator(char c) {
+        return is(c, LINE_TERMINATOR) || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+}
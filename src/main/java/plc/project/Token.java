@@ -1,5 +1,7 @@
 package plc.project;
 
+import java.math.BigInteger;
+
 public final class Token {
 
     public enum Type {
@@ -11,21 +13,172 @@ public final class Token {
         OPERATOR
     }
 
+    /**
+     * A finer classification of keywords and operators, computed when the
+     * token is created so the {@link Parser} can dispatch on it with a
+     * {@code switch} instead of comparing literals. Every other token
+     * (including plain identifiers and literals) is {@link #NONE}.
+     *
+     * The keywords are declared in the same order as
+     * {@link SymbolTable#KEYWORDS}.
+     */
+    public enum Kind {
+        NONE,
+        LIST, VAR, VAL, FUN, DO, END, ELSE, DEFAULT, CASE,
+        LET, SWITCH, IF, WHILE, RETURN, NIL, TRUE, FALSE,
+        AND, OR, EQUAL, NOT_EQUAL, LESS, GREATER, ASSIGN,
+        PLUS, MINUS, MULTIPLY, DIVIDE, POWER,
+        LEFT_PAREN, RIGHT_PAREN, LEFT_BRACKET, RIGHT_BRACKET, COMMA, COLON, SEMICOLON;
+
+        private static final Kind[] KEYWORDS = new Kind[32];
+        private static final Kind[] OPERATORS = new Kind[128];
+
+        /**
+         * Keywords are found with a perfect hash of their length, first and
+         * last characters, which is checked for collisions here.
+         */
+        static {
+            for (int i = LIST.ordinal(); i <= FALSE.ordinal(); i++) {
+                Kind kind = values()[i];
+                int hash = hash(kind.name(), 0, kind.name().length());
+                if (KEYWORDS[hash] != null) {
+                    throw new AssertionError("Keyword hash collision between " + KEYWORDS[hash] + " and " + kind + ".");
+                }
+                KEYWORDS[hash] = kind;
+            }
+            OPERATORS['<'] = LESS;
+            OPERATORS['>'] = GREATER;
+            OPERATORS['='] = ASSIGN;
+            OPERATORS['+'] = PLUS;
+            OPERATORS['-'] = MINUS;
+            OPERATORS['*'] = MULTIPLY;
+            OPERATORS['/'] = DIVIDE;
+            OPERATORS['^'] = POWER;
+            OPERATORS['('] = LEFT_PAREN;
+            OPERATORS[')'] = RIGHT_PAREN;
+            OPERATORS['['] = LEFT_BRACKET;
+            OPERATORS[']'] = RIGHT_BRACKET;
+            OPERATORS[','] = COMMA;
+            OPERATORS[':'] = COLON;
+            OPERATORS[';'] = SEMICOLON;
+        }
+
+        /**
+         * Classifies the literal which is the slice of {@code source} starting
+         * at {@code start}. Only the literal is considered, as with the string
+         * patterns of {@link Parser}; the lexer never produces a keyword or
+         * operator literal with any other type.
+         */
+        public static Kind of(CharSequence source, int start, int length) {
+            if (length == 0 || length > 7) {
+                return NONE;
+            }
+            char c = source.charAt(start);
+            if (length == 1) {
+                return c < 128 && OPERATORS[c] != null ? OPERATORS[c] : NONE;
+            } else if (length == 2 && source.charAt(start + 1) == (c == '!' ? '=' : c)) {
+                switch (c) {
+                    case '&':
+                        return AND;
+                    case '|':
+                        return OR;
+                    case '=':
+                        return EQUAL;
+                    case '!':
+                        return NOT_EQUAL;
+                }
+            }
+            Kind kind = KEYWORDS[hash(source, start, length)];
+            return kind != null && matches(kind.name(), source, start, length) ? kind : NONE;
+        }
+
+        private static int hash(CharSequence source, int start, int length) {
+            return ((length << 3) + (source.charAt(start) << 1) + source.charAt(start + length - 1)) & 31;
+        }
+
+        private static boolean matches(String name, CharSequence source, int start, int length) {
+            if (name.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (name.charAt(i) != source.charAt(start + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
     private final Type type;
-    private final String literal;
+    private final Kind kind;
+    private final CharSequence source;
+    private final int start;
+    private final int length;
     private final int index;
+    private final int symbol;
+    private String literal;
+    private boolean decoded;
+    private long integer;
+    private Object value;
 
     public Token(Type type, String literal, int index) {
-        this.type = type;
+        this(type, literal, index, -1);
+    }
+
+    /**
+     * Creates a token for an identifier interned in a {@link SymbolTable},
+     * where {@code literal} is the canonical name of {@code symbol}.
+     */
+    public Token(Type type, String literal, int index, int symbol) {
+        this(type, literal, 0, literal.length(), index, symbol);
         this.literal = literal;
+    }
+
+    /**
+     * Creates a token whose literal is the slice of {@code source} starting at
+     * {@code start}. The literal is only copied into a {@link String} when
+     * {@link #getLiteral()} is first called, so the source must not be
+     * modified while the token is in use.
+     */
+    public Token(Type type, CharSequence source, int start, int length, int index) {
+        this(type, source, start, length, index, -1);
+    }
+
+    /**
+     * Creates a token whose value was decoded by the lexer. An integer which
+     * fits in a {@code long} is given as {@code integer} with a {@code null}
+     * value; any other literal is given as its value (see {@link #getValue()}).
+     */
+    public Token(Type type, CharSequence source, int start, int length, int index, long integer, Object value) {
+        this(type, source, start, length, index, -1);
+        this.decoded = true;
+        this.integer = integer;
+        this.value = value;
+    }
+
+    private Token(Type type, CharSequence source, int start, int length, int index, int symbol) {
+        this.type = type;
+        this.kind = Kind.of(source, start, length);
+        this.source = source;
+        this.start = start;
+        this.length = length;
         this.index = index;
+        this.symbol = symbol;
     }
 
     public Type getType() {
         return type;
     }
 
+    public Kind getKind() {
+        return kind;
+    }
+
     public String getLiteral() {
+        if (literal == null) {
+            literal = source.subSequence(start, start + length).toString();
+        }
         return literal;
     }
 
@@ -33,17 +186,76 @@ public final class Token {
         return index;
     }
 
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the {@link SymbolTable} id of the literal, or {@code -1} if the
+     * token was not interned.
+     */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the decoded value of a literal token: a {@link BigInteger},
+     * {@link java.math.BigDecimal}, {@link Character} or {@link String} (with
+     * its quotes removed and escapes decoded). Returns {@code null} for other
+     * tokens and for the lone quote the lexer accepts at the end of input.
+     */
+    public Object getValue() {
+        decode();
+        return type == Type.INTEGER && value == null ? BigInteger.valueOf(integer) : value;
+    }
+
+    /**
+     * Returns true if this is an integer whose value fits in a {@code long},
+     * which is returned by {@link #getLongValue()} without boxing.
+     */
+    public boolean isLong() {
+        decode();
+        return type == Type.INTEGER && value == null;
+    }
+
+    public long getLongValue() {
+        if (!isLong()) {
+            throw new IllegalStateException("The token " + this + " is not an integer within the range of a long.");
+        }
+        return integer;
+    }
+
+    /**
+     * Decodes the value of a token that was not created by the lexer, such as
+     * one created from its literal.
+     */
+    private void decode() {
+        if (decoded) {
+            return;
+        }
+        if (type == Type.INTEGER) {
+            try {
+                integer = Long.parseLong(getLiteral());
+            } catch (NumberFormatException e) {
+                value = new BigInteger(getLiteral());
+            }
+        } else {
+            value = Literals.decode(type, source, start, length);
+        }
+        decoded = true;
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
                 && type == ((Token) obj).type
-                && literal.equals(((Token) obj).literal)
+                && getLiteral().equals(((Token) obj).getLiteral())
                 && index == ((Token) obj).index;
     }
 
     @Override
     public String toString() {
-        return type + "=" + literal + "@" + index;
+        return type + "=" + getLiteral() + "@" + index;
     }
 
 }
@@ -0,0 +1,178 @@
+package plc.project;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A compact list of tokens stored as parallel primitive arrays of types,
+ * start indexes and lengths, instead of one {@link Token} object per token.
+ * Literals are read from the source on demand, so the source must not be
+ * modified while the buffer is in use.
+ *
+ * Buffers are created by {@link TableLexer#lexBuffer()} and can be passed to
+ * {@link Parser#Parser(TokenBuffer)} directly.
+ */
+public final class TokenBuffer {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final Token.Kind[] KINDS = Token.Kind.values();
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final CharSequence source;
+    private final SymbolTable symbolTable;
+    private byte[] types;
+    private byte[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] symbols;
+    private int size = 0;
+
+    public TokenBuffer(CharSequence source) {
+        this(source, null);
+    }
+
+    /**
+     * Creates a buffer which also stores the {@link SymbolTable} id of each
+     * token, if the table is not {@code null}.
+     */
+    public TokenBuffer(CharSequence source, SymbolTable symbolTable) {
+        this(source, symbolTable, DEFAULT_CAPACITY);
+    }
+
+    public TokenBuffer(CharSequence source, SymbolTable symbolTable, int capacity) {
+        this.source = source;
+        this.symbolTable = symbolTable;
+        this.types = new byte[capacity];
+        this.kinds = new byte[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.symbols = symbolTable != null ? new int[capacity] : null;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public void add(Token.Type type, int start, int length) {
+        add(type, start, length, -1);
+    }
+
+    /**
+     * Adds a token with the given {@link SymbolTable} id, which is ignored if
+     * the buffer was created without a symbol table.
+     */
+    public void add(Token.Type type, int start, int length, int symbol) {
+        if (size == types.length) {
+            int capacity = Math.max(DEFAULT_CAPACITY, size + (size >> 1));
+            types = Arrays.copyOf(types, capacity);
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            if (symbols != null) {
+                symbols = Arrays.copyOf(symbols, capacity);
+            }
+        }
+        types[size] = (byte) type.ordinal();
+        kinds[size] = (byte) Token.Kind.of(source, start, length).ordinal();
+        starts[size] = start;
+        lengths[size] = length;
+        if (symbols != null) {
+            symbols[size] = symbol;
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.Type getType(int index) {
+        return TYPES[types[check(index)]];
+    }
+
+    public Token.Kind getKind(int index) {
+        return KINDS[kinds[check(index)]];
+    }
+
+    /**
+     * Returns the index of the token in the source, as {@link Token#getIndex()}.
+     */
+    public int getIndex(int index) {
+        return starts[check(index)];
+    }
+
+    public int getLength(int index) {
+        return lengths[check(index)];
+    }
+
+    /**
+     * Returns the {@link SymbolTable} id of the token, or {@code -1} if it was
+     * not interned.
+     */
+    public int getSymbol(int index) {
+        return symbols != null ? symbols[check(index)] : -1;
+    }
+
+    /**
+     * Returns the canonical name of an interned token, otherwise copies the
+     * literal of the token out of the source.
+     */
+    public String getLiteral(int index) {
+        int symbol = getSymbol(index);
+        if (symbol >= 0) {
+            return symbolTable.getName(symbol);
+        }
+        int start = starts[check(index)];
+        return source.subSequence(start, start + lengths[index]).toString();
+    }
+
+    /**
+     * Decodes the value of a literal token as {@link Token#getValue()}. The
+     * buffer does not store values, so this reads the literal from the source.
+     */
+    public Object getValue(int index) {
+        int start = starts[check(index)];
+        return Literals.decode(TYPES[types[index]], source, start, lengths[index]);
+    }
+
+    /**
+     * Creates a {@link Token} referencing the source for the token at the
+     * given index.
+     */
+    public Token get(int index) {
+        int symbol = getSymbol(index);
+        if (symbol >= 0) {
+            return new Token(getType(index), symbolTable.getName(symbol), starts[index], symbol);
+        }
+        return new Token(getType(index), source, starts[index], lengths[index], starts[index]);
+    }
+
+    /**
+     * Returns a read-only view of the buffer as a list, creating tokens as
+     * they are accessed.
+     */
+    public List<Token> asList() {
+        return new AbstractList<>() {
+
+            @Override
+            public Token get(int index) {
+                return TokenBuffer.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+        };
+    }
+
+    private int check(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size + ".");
+        }
+        return index;
+    }
+
+}
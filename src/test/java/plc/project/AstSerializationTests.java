@@ -0,0 +1,89 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * Checks that sources read by {@link AstReader} are equal to the sources
+ * written by {@link AstWriter}, including analyzed sources.
+ */
+public class AstSerializationTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testParsed(String test, String input) {
+        test(new Parser(new Lexer(input).lex()).parseSource());
+    }
+
+    private static Stream<Arguments> testParsed() {
+        return Stream.of(
+                Arguments.of("Program", Programs.PROGRAM),
+                Arguments.of("Generated", Programs.source(10)),
+                Arguments.of("Empty", ""),
+                Arguments.of("Literals", "VAL a: Integer = 9223372036854775807;\n"
+                        + "VAL b: Integer = -9223372036854775808;\n"
+                        + "VAL c: Integer = 123456789012345678901234567890;\n"
+                        + "VAL d: Decimal = -0.000123;\n"
+                        + "VAL e: String = \"\\t\u00e9\u4e2d\";\n"
+                        + "VAL f: Character = '\\'';\n"
+                        + "VAL g: Boolean = FALSE;\n")
+        );
+    }
+
+    @Test
+    void testAnalyzed() {
+        Programs.assertAnalyzed(test(Programs.analyze(Programs.PROGRAM)));
+    }
+
+    @Test
+    void testFile() throws IOException {
+        Ast.Source source = new Parser(new Lexer(Programs.source(50)).lex()).parseSource();
+        Path path = Files.createTempFile("plc", ".ast");
+        try {
+            AstWriter.write(source, path);
+            Assertions.assertEquals(source, AstReader.read(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testDeep() {
+        int depth = 100_000;
+        String input = "FUN main() DO " + "IF x DO ".repeat(depth) + "RETURN " + "(".repeat(depth) + "x + 1" + ")".repeat(depth) + ";" + " END".repeat(depth) + " END";
+        Ast.Source read = AstReader.read(AstWriter.write(Programs.parse(input)));
+        Ast.Statement statement = read.getFunctions().get(0).getStatements().get(0);
+        for (int i = 0; i < depth; i++) {
+            statement = ((Ast.Statement.If) statement).getThenStatements().get(0);
+        }
+        Ast.Expression expression = ((Ast.Statement.Return) statement).getValue();
+        for (int i = 0; i < depth; i++) {
+            expression = ((Ast.Expression.Group) expression).getExpression();
+        }
+        Assertions.assertEquals(Programs.parse("FUN main() DO RETURN x + 1; END").getFunctions().get(0).getStatements().get(0),
+                new Ast.Statement.Return(expression));
+    }
+
+    @Test
+    void testInvalid() {
+        byte[] bytes = AstWriter.write(Programs.parse(Programs.PROGRAM));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstReader.read(new byte[] {1, 2, 3, 4, 5}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstReader.read(Arrays.copyOf(bytes, bytes.length - 1)));
+    }
+
+    private static Ast.Source test(Ast.Source source) {
+        Ast.Source read = AstReader.read(AstWriter.write(source));
+        Assertions.assertEquals(source, read);
+        return read;
+    }
+
+}
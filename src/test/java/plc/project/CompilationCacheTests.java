@@ -0,0 +1,127 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link CompilationCache} returns the same output as running
+ * each phase directly, whether the output is cached or not.
+ */
+public class CompilationCacheTests {
+
+    @Test
+    void testPhases() throws IOException {
+        Path directory = Files.createTempDirectory("plc");
+        try {
+            Ast.Source analyzed = Programs.analyze(Programs.PROGRAM);
+            String generated = Programs.generate(analyzed);
+            for (int i = 0; i < 2; i++) {
+                CompilationCache cache = new CompilationCache(directory, Long.MAX_VALUE);
+                Assertions.assertEquals(new Lexer(Programs.PROGRAM).lex(), cache.lex(Programs.PROGRAM));
+                Assertions.assertEquals(Programs.parse(Programs.PROGRAM), cache.parse(Programs.PROGRAM));
+                Assertions.assertEquals(analyzed, cache.analyze(Programs.PROGRAM));
+                Assertions.assertEquals(generated, cache.generate(Programs.PROGRAM));
+                Assertions.assertEquals(4, count(directory));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testGenerateOnly() throws IOException {
+        Path directory = Files.createTempDirectory("plc");
+        try {
+            CompilationCache cache = new CompilationCache(directory, Long.MAX_VALUE);
+            String generated = cache.generate(Programs.PROGRAM);
+            Assertions.assertEquals(4, count(directory));
+            Files.delete(cache.entry(Programs.PROGRAM, ".analyzed"));
+            Assertions.assertEquals(generated, cache.generate(Programs.PROGRAM));
+            Assertions.assertEquals(3, count(directory));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testCorrupt() throws IOException {
+        Path directory = Files.createTempDirectory("plc");
+        try {
+            CompilationCache cache = new CompilationCache(directory, Long.MAX_VALUE);
+            Ast.Source parsed = cache.parse(Programs.PROGRAM);
+            Files.write(cache.entry(Programs.PROGRAM, ".parsed"), new byte[] {1, 2, 3});
+            Files.write(cache.entry(Programs.PROGRAM, ".tokens"), new byte[] {0, 0, 0, 1, 0, 0, 0, 0, 0x7F, 0, 0, 0});
+            Assertions.assertEquals(new Lexer(Programs.PROGRAM).lex(), cache.lex(Programs.PROGRAM));
+            Assertions.assertEquals(parsed, cache.parse(Programs.PROGRAM));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testEviction() throws IOException {
+        Path directory = Files.createTempDirectory("plc");
+        try {
+            CompilationCache unbounded = new CompilationCache(directory, Long.MAX_VALUE);
+            String[] sources = {"VAR a: Integer = 1;", "VAR b: Integer = 2;", "VAR c: Integer = 3;"};
+            for (int i = 0; i < sources.length; i++) {
+                unbounded.lex(sources[i]);
+                Files.setLastModifiedTime(unbounded.entry(sources[i], ".tokens"), FileTime.fromMillis(1000L * (i + 1)));
+            }
+            long size = Files.size(unbounded.entry(sources[0], ".tokens"));
+            CompilationCache cache = new CompilationCache(directory, 3 * size);
+            cache.lex(sources[0]);
+            cache.lex("VAR d: Integer = 4;");
+            Assertions.assertEquals(3, count(directory));
+            Assertions.assertTrue(Files.exists(cache.entry(sources[0], ".tokens")));
+            Assertions.assertFalse(Files.exists(cache.entry(sources[1], ".tokens")));
+            Assertions.assertTrue(Files.exists(cache.entry(sources[2], ".tokens")));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testTemporaryFiles() throws IOException {
+        Path directory = Files.createTempDirectory("plc");
+        try {
+            CompilationCache cache = new CompilationCache(directory, Long.MAX_VALUE);
+            cache.lex("VAR a: Integer = 1;");
+            Path entry = cache.entry("VAR a: Integer = 1;", ".tokens");
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(1000));
+            long size = Files.size(entry);
+            Path abandoned = Files.write(directory.resolve("abandoned.tmp"), new byte[1]);
+            Files.setLastModifiedTime(abandoned, FileTime.fromMillis(1000));
+            Path writing = Files.write(directory.resolve("writing.tmp"), new byte[(int) size]);
+            new CompilationCache(directory, 2 * size).lex("VAR b: Integer = 2;");
+            Assertions.assertFalse(Files.exists(abandoned));
+            Assertions.assertTrue(Files.exists(writing));
+            Assertions.assertFalse(Files.exists(entry));
+            Assertions.assertTrue(Files.exists(cache.entry("VAR b: Integer = 2;", ".tokens")));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static long count(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
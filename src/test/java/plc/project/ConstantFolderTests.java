@@ -0,0 +1,101 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.stream.Stream;
+
+public class ConstantFolderTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testFolded(String test, String input, Object expected) {
+        Ast.Expression expression = analyze(input);
+        Ast.Expression folded = new ConstantFolder().fold(expression);
+        Assertions.assertTrue(folded instanceof Ast.Expression.Literal, folded.toString());
+        Assertions.assertEquals(expected, ((Ast.Expression.Literal) folded).getLiteral());
+        Assertions.assertSame(expression.getType(), folded.getType());
+        Assertions.assertEquals(interpret(expression), interpret(folded));
+    }
+
+    private static Stream<Arguments> testFolded() {
+        return Stream.of(
+                Arguments.of("Multiplication", "60 * 60 * 24", BigInteger.valueOf(86400)),
+                Arguments.of("Concatenation", "\"a\" + \"b\"", "ab"),
+                Arguments.of("Concatenation Integer", "\"a\" + 1", "a1"),
+                Arguments.of("Subtraction", "1 - 2", BigInteger.valueOf(-1)),
+                Arguments.of("Integer Division", "7 / 2", BigInteger.valueOf(3)),
+                Arguments.of("Exponent", "2 ^ 10", BigInteger.valueOf(1024)),
+                Arguments.of("Group", "(1 + 2) * 3", BigInteger.valueOf(9)),
+                Arguments.of("And", "TRUE && FALSE", false),
+                Arguments.of("Or", "FALSE || TRUE", true),
+                Arguments.of("Less Than", "1 < 2", true),
+                Arguments.of("Greater Than", "\"a\" > \"b\"", false)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testUnfolded(String test, String input) {
+        Ast.Expression expression = analyze(input);
+        Assertions.assertSame(expression, new ConstantFolder().fold(expression));
+    }
+
+    private static Stream<Arguments> testUnfolded() {
+        return Stream.of(
+                Arguments.of("Variable", "x + 1"),
+                Arguments.of("Division By Zero", "1 / 0"),
+                Arguments.of("Overflow", "2147483647 + 1"),
+                Arguments.of("Incomparable", "\"a\" < 1"),
+                Arguments.of("Decimal Division", "1.0 / 3.0"),
+                Arguments.of("Decimal Addition", "0.1 + 0.2"),
+                Arguments.of("Decimal Concatenation", "\"a\" + 1.50")
+        );
+    }
+
+    @Test
+    void testPartial() {
+        Ast.Expression.Binary expression = (Ast.Expression.Binary) analyze("x + 60 * 60");
+        Ast.Expression.Binary folded = (Ast.Expression.Binary) new ConstantFolder().fold(expression);
+        Assertions.assertSame(expression.getLeft(), folded.getLeft());
+        Assertions.assertEquals(BigInteger.valueOf(3600), ((Ast.Expression.Literal) folded.getRight()).getLiteral());
+        Assertions.assertEquals(interpret(expression), interpret(folded));
+    }
+
+    @Test
+    void testSource() {
+        String input = "FUN main(): Integer DO\n"
+                + "    print(\"a\" + \"b\");\n"
+                + "    RETURN 60 * 60 * 24;\n"
+                + "END\n";
+        Ast.Source source = Programs.analyze(input);
+        Ast.Source folded = new ConstantFolder().fold(source);
+        String expected = Programs.generate(source).replace("60 * 60 * 24", "86400").replace("\"a\" + \"b\"", "\"ab\"");
+        Assertions.assertEquals(expected, Programs.generate(folded));
+        Assertions.assertEquals(Programs.interpret(source), Programs.interpret(folded));
+    }
+
+    private static Scope scope() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("x", "x", Environment.Type.INTEGER, true, Environment.create(BigInteger.ONE));
+        return scope;
+    }
+
+    /**
+     * Parses and analyzes an expression in a scope defining {@code x}.
+     */
+    private static Ast.Expression analyze(String input) {
+        Ast.Expression expression = new Parser(new Lexer(input).lex()).parseExpression();
+        new Analyzer(scope()).visit(expression);
+        return expression;
+    }
+
+    private static Object interpret(Ast.Expression expression) {
+        return new Interpreter(scope()).visit(expression).getValue();
+    }
+
+}
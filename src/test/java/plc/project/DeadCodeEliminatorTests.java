@@ -0,0 +1,94 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+public class DeadCodeEliminatorTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testEliminate(String test, String input, String expected) {
+        Ast.Source source = analyze(input);
+        Ast.Source eliminated = new DeadCodeEliminator().eliminate(source);
+        Assertions.assertEquals(Programs.generate(analyze(expected)), Programs.generate(eliminated));
+        Assertions.assertEquals(Programs.interpret(source), Programs.interpret(eliminated));
+    }
+
+    private static Stream<Arguments> testEliminate() {
+        return Stream.of(
+                Arguments.of("If True",
+                        "IF TRUE DO x = 1; ELSE x = 2; END RETURN x;",
+                        "x = 1; RETURN x;"),
+                Arguments.of("If False",
+                        "IF FALSE DO x = 1; END RETURN x;",
+                        "RETURN x;"),
+                Arguments.of("If Declaration",
+                        "IF TRUE DO LET y = 1; x = y; ELSE x = 2; END RETURN x;",
+                        "IF TRUE DO LET y = 1; x = y; END RETURN x;"),
+                Arguments.of("After Return",
+                        "RETURN x; x = 2; RETURN 2;",
+                        "RETURN x;"),
+                Arguments.of("After If Return",
+                        "IF x > 0 DO RETURN 1; ELSE RETURN 2; END RETURN 3;",
+                        "IF x > 0 DO RETURN 1; ELSE RETURN 2; END"),
+                Arguments.of("After Switch Return",
+                        "SWITCH x CASE 1: RETURN 1; DEFAULT RETURN 2; END RETURN 3;",
+                        "SWITCH x CASE 1: RETURN 1; DEFAULT RETURN 2; END"),
+                Arguments.of("While False",
+                        "WHILE FALSE DO x = 1; END RETURN x;",
+                        "RETURN x;"),
+                Arguments.of("Nested",
+                        "WHILE x < 10 DO x = x + 1; IF TRUE DO RETURN x; END x = 0; END RETURN 0;",
+                        "WHILE x < 10 DO x = x + 1; RETURN x; END RETURN 0;"),
+                Arguments.of("Switch Match",
+                        "SWITCH 2 CASE 1: x = 1; CASE 2: x = 2; CASE 3: x = 3; DEFAULT x = 4; END RETURN x;",
+                        "x = 2; RETURN x;"),
+                Arguments.of("Switch Default",
+                        "SWITCH 5 CASE 1: x = 1; DEFAULT x = 4; END RETURN x;",
+                        "x = 4; RETURN x;"),
+                Arguments.of("Switch Duplicate",
+                        "SWITCH x CASE 0: x = 1; CASE 2: x = 2; CASE 0: x = 3; DEFAULT x = 4; END RETURN x;",
+                        "SWITCH x CASE 0: x = 1; CASE 2: x = 2; DEFAULT x = 4; END RETURN x;"),
+                Arguments.of("Switch Declaration",
+                        "SWITCH 1 CASE 1: LET y = 1; x = y; DEFAULT x = 4; END RETURN x;",
+                        "SWITCH 1 DEFAULT LET y = 1; x = y; END RETURN x;")
+        );
+    }
+
+    @Test
+    void testWhileTrue() {
+        Ast.Source source = analyze("WHILE TRUE DO RETURN x; END RETURN 0;");
+        Ast.Source eliminated = new DeadCodeEliminator().eliminate(source);
+        Assertions.assertEquals(Programs.generate(analyze("WHILE TRUE DO RETURN x; END")), Programs.generate(eliminated));
+    }
+
+    @Test
+    void testUnchanged() {
+        Ast.Source source = analyze("IF x > 0 DO x = 1; END WHILE x < 10 DO x = x + 1; END RETURN x;");
+        Assertions.assertSame(source, new DeadCodeEliminator().eliminate(source));
+    }
+
+    @Test
+    void testFolded() {
+        Ast.Source source = analyze("IF 1 < 2 DO x = 1; ELSE x = 2; END RETURN x;");
+        Ast.Source eliminated = new DeadCodeEliminator().eliminate(new ConstantFolder().fold(source));
+        Assertions.assertEquals(Programs.generate(analyze("x = 1; RETURN x;")), Programs.generate(eliminated));
+    }
+
+    /**
+     * Analyzes a main function with the given statements and a global
+     * {@code x}.
+     */
+    private static Ast.Source analyze(String statements) {
+        return Programs.analyze("VAR x: Integer = 0;\n"
+                + "FUN main(): Integer DO\n"
+                + "    " + statements + "\n"
+                + "END\n");
+    }
+
+}
@@ -0,0 +1,118 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class ExpressionInternerTests {
+
+    /**
+     * A program repeating the expression {@code x + 1}, and {@code x} within it.
+     */
+    private static final String REPEATED = "VAR x: Integer = 1;\n"
+            + "FUN main(): Integer DO\n"
+            + "    x = x + 1;\n"
+            + "    x = x + 1;\n"
+            + "    IF x + 1 > 2 DO print(x + 1); END\n"
+            + "    RETURN x + 1;\n"
+            + "END\n";
+
+    @Test
+    void testHashCode() {
+        String source = Programs.source(10);
+        Ast.Source first = Programs.parse(source);
+        Ast.Source second = Programs.parse(source);
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    void testShared() {
+        Ast.Source source = Programs.analyze(REPEATED);
+        Ast.Source interned = new ExpressionInterner().intern(source);
+        Assertions.assertEquals(source, interned);
+        List<Ast.Statement> statements = interned.getFunctions().get(0).getStatements();
+        Ast.Expression first = ((Ast.Statement.Assignment) statements.get(0)).getValue();
+        Ast.Expression second = ((Ast.Statement.Assignment) statements.get(1)).getValue();
+        Ast.Statement.If condition = (Ast.Statement.If) statements.get(2);
+        Ast.Expression third = ((Ast.Expression.Binary) condition.getCondition()).getLeft();
+        Ast.Expression fourth = ((Ast.Statement.Return) statements.get(3)).getValue();
+        Assertions.assertSame(first, second);
+        Assertions.assertSame(first, third);
+        Assertions.assertSame(first, fourth);
+        Assertions.assertSame(((Ast.Statement.Assignment) statements.get(0)).getReceiver(), ((Ast.Expression.Binary) first).getLeft());
+    }
+
+    @Test
+    void testHash() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Ast.Source source = interner.intern(Programs.analyze(REPEATED));
+        for (Ast.Expression expression : expressions(source)) {
+            Assertions.assertEquals(expression.hashCode(), interner.getHash(expression));
+        }
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> interner.getHash(new Ast.Expression.Access(Optional.empty(), "x")));
+    }
+
+    @Test
+    void testDistinct() {
+        ExpressionInterner interner = new ExpressionInterner();
+        Ast.Expression.Access first = new Ast.Expression.Access(Optional.empty(), "x");
+        first.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, true, Environment.NIL));
+        Ast.Expression.Access second = new Ast.Expression.Access(Optional.empty(), "x");
+        second.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, true, Environment.NIL));
+        Assertions.assertEquals(first, second);
+        Assertions.assertSame(first, interner.intern(first));
+        Assertions.assertSame(second, interner.intern(second));
+        Ast.Expression.Literal integer = new Ast.Expression.Literal(BigInteger.ONE);
+        integer.setType(Environment.Type.INTEGER);
+        Ast.Expression.Literal decimal = new Ast.Expression.Literal(BigInteger.ONE);
+        decimal.setType(Environment.Type.DECIMAL);
+        Assertions.assertNotSame(interner.intern(integer), interner.intern(decimal));
+        Assertions.assertEquals(4, interner.size());
+    }
+
+    @Test
+    void testGenerated() {
+        Ast.Source source = Programs.analyze(REPEATED);
+        Ast.Source interned = new ExpressionInterner().intern(source);
+        Assertions.assertEquals(Programs.generate(source), Programs.generate(interned));
+    }
+
+    @Test
+    void testSize() {
+        Ast.Source source = Programs.parse(Programs.source(50));
+        ExpressionInterner interner = new ExpressionInterner();
+        Ast.Source interned = interner.intern(source);
+        Assertions.assertEquals(source, interned);
+        Set<Ast.Expression> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        distinct.addAll(expressions(interned));
+        Assertions.assertEquals(interner.size(), distinct.size());
+        Assertions.assertTrue(distinct.size() < expressions(source).size());
+    }
+
+    /**
+     * Returns every expression in the source, once for each time it occurs.
+     */
+    private static List<Ast.Expression> expressions(Ast.Source source) {
+        List<Ast.Expression> expressions = new ArrayList<>();
+        new AstRewriter() {
+
+            @Override
+            protected Ast.Expression visitExpression(Ast.Expression ast) {
+                expressions.add(ast);
+                return super.visitExpression(ast);
+            }
+
+        }.visit(source);
+        return expressions;
+    }
+
+}
@@ -0,0 +1,103 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+/**
+ * Checks that a {@link FlatAst} recreates the tree it was built from, and
+ * that visitors walking it through {@link FlatAst#accept(Ast.Visitor)} behave
+ * as on the object tree.
+ */
+public class FlatAstTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testParsed(String test, String input) {
+        Ast.Source source = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(source, FlatAst.of(source).toSource());
+    }
+
+    private static Stream<Arguments> testParsed() {
+        return Stream.of(
+                Arguments.of("Program", Programs.PROGRAM),
+                Arguments.of("Generated", Programs.source(10)),
+                Arguments.of("Empty", ""),
+                Arguments.of("Nested", "FUN f(a: Integer, b: String) DO\n"
+                        + "    IF a DO ELSE IF b DO LET c; LET d: Integer; END END\n"
+                        + "    SWITCH a DEFAULT END\n"
+                        + "    l[f(g(), 1, 'c', \"s\", NIL)] = 1.5;\n"
+                        + "END\n")
+        );
+    }
+
+    @Test
+    void testNodes() {
+        FlatAst ast = FlatAst.of(new Parser(new Lexer("VAL a: Integer = 1 + 2;").lex()).parseSource());
+        Assertions.assertEquals(5, ast.size());
+        int source = ast.getRoot();
+        Assertions.assertEquals(Ast.Kind.SOURCE, ast.getKind(source));
+        int global = ast.getChild(source, 0);
+        Assertions.assertEquals(Ast.Kind.GLOBAL, ast.getKind(global));
+        int binary = ast.getChild(global, 0);
+        Assertions.assertEquals(Ast.Kind.BINARY, ast.getKind(binary));
+        Assertions.assertEquals(2, ast.getChildCount(binary));
+        Assertions.assertEquals(java.math.BigInteger.TWO, ast.getLiteral(ast.getChild(binary, 1)));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> ast.getChild(binary, 2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ast.getLiteral(binary));
+    }
+
+    @Test
+    void testDeep() {
+        int depth = 100_000;
+        String input = "FUN main() DO " + "WHILE x DO ".repeat(depth) + "RETURN " + "(".repeat(depth) + "x + 1" + ")".repeat(depth) + ";" + " END".repeat(depth) + " END";
+        FlatAst flat = FlatAst.of(Programs.parse(input));
+        Assertions.assertEquals(3 * depth + 6, flat.size());
+        Ast.Statement statement = flat.toSource().getFunctions().get(0).getStatements().get(0);
+        for (int i = 0; i < depth; i++) {
+            statement = ((Ast.Statement.While) statement).getStatements().get(0);
+        }
+        Ast.Expression expression = ((Ast.Statement.Return) statement).getValue();
+        for (int i = 0; i < depth; i++) {
+            expression = ((Ast.Expression.Group) expression).getExpression();
+        }
+        Assertions.assertEquals(Programs.parse("FUN main() DO RETURN x + 1; END").getFunctions().get(0).getStatements().get(0),
+                new Ast.Statement.Return(expression));
+    }
+
+    @Test
+    void testParameters() {
+        String input = "FUN f(a: Integer) DO END\nFUN g(a: Integer) DO END\n";
+        Ast.Source source = FlatAst.of(new Parser(new Lexer(input).lex()).parseSource()).toSource();
+        Ast.Function f = source.getFunctions().get(0);
+        Ast.Function g = source.getFunctions().get(1);
+        Assertions.assertEquals(f.getParameters(), g.getParameters());
+        Assertions.assertNotSame(f.getParameters(), g.getParameters());
+        Assertions.assertNotSame(f.getParameterTypeNames(), g.getParameterTypeNames());
+    }
+
+    @Test
+    void testAnalyzer() {
+        FlatAst ast = FlatAst.of(Programs.parse(Programs.PROGRAM));
+        ast.accept(new Analyzer(new Scope(null)));
+        Ast.Source source = ast.toSource();
+        Assertions.assertEquals(Programs.analyze(Programs.PROGRAM), source);
+        Programs.assertAnalyzed(source);
+    }
+
+    @Test
+    void testGenerator() {
+        FlatAst ast = FlatAst.of(Programs.parse(Programs.PROGRAM));
+        ast.accept(new Analyzer(new Scope(null)));
+        StringWriter actual = new StringWriter();
+        ast.accept(new Generator(new PrintWriter(actual)));
+        Assertions.assertEquals(Programs.generate(Programs.analyze(Programs.PROGRAM)), actual.toString());
+    }
+
+}
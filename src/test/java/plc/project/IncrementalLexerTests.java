@@ -0,0 +1,84 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that after each edit {@link IncrementalLexer} has exactly the tokens
+ * (or exception) of {@link Lexer#lex()} on the edited source.
+ */
+public class IncrementalLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEdit(String test, String source, int offset, int removed, String inserted) {
+        IncrementalLexer lexer = new IncrementalLexer(source);
+        test(lexer, offset, removed, inserted);
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Insert Token", "LET x = 1;", 8, 0, "2 + "),
+                Arguments.of("Join Identifiers", "abc def", 3, 1, ""),
+                Arguments.of("Split Identifier", "abcdef", 3, 0, " "),
+                Arguments.of("Negative Number", "x - 0.5", 3, 1, ""),
+                Arguments.of("Open String", "x = 1;\ny = 2;", 4, 0, "\""),
+                Arguments.of("Append", "LET x", 5, 0, " = 1;"),
+                Arguments.of("Prepend", "x", 0, 0, "-"),
+                Arguments.of("Delete All", "LET x = 1;", 0, 10, ""),
+                Arguments.of("Whitespace", "a   b", 2, 0, "\n")
+        );
+    }
+
+    @Test
+    void testRecovery() {
+        IncrementalLexer lexer = new IncrementalLexer("x = 1;");
+        Assertions.assertThrows(ParseException.class, () -> lexer.edit(4, 0, "\""));
+        Assertions.assertThrows(IllegalStateException.class, lexer::size);
+        Assertions.assertThrows(IllegalStateException.class, lexer::getTokens);
+        Assertions.assertEquals("x = \"1;", lexer.getSource());
+        test(lexer, 4, 1, "");
+    }
+
+    @Test
+    void testRandomEdits() {
+        String alphabet = "aZ@_-09.'\"\\ \n\t!=&|;()bnrt";
+        Random random = new Random(42);
+        IncrementalLexer lexer = new IncrementalLexer(Programs.source(4));
+        for (int i = 0; i < 5000; i++) {
+            String source = lexer.getSource();
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(4, source.length() - offset) + 1);
+            StringBuilder inserted = new StringBuilder();
+            for (int j = random.nextInt(4); j > 0; j--) {
+                inserted.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            test(lexer, offset, removed, inserted.toString());
+        }
+    }
+
+    private static void test(IncrementalLexer lexer, int offset, int removed, String inserted) {
+        String source = lexer.getSource();
+        source = source.substring(0, offset) + inserted + source.substring(offset + removed);
+        Object expected;
+        try {
+            expected = new Lexer(source).lex();
+        } catch (ParseException e) {
+            expected = e;
+        }
+        try {
+            lexer.edit(offset, removed, inserted);
+            Assertions.assertEquals(expected, lexer.getTokens(), source);
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e, source);
+        }
+        Assertions.assertEquals(source, lexer.getSource());
+    }
+
+}
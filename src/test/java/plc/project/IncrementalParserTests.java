@@ -0,0 +1,130 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that after each edit {@link IncrementalParser} has exactly the AST
+ * (or exception) of {@link Parser#parseSource()} on the edited source, and
+ * that declarations away from the edit are reused.
+ */
+public class IncrementalParserTests {
+
+    private static final String SOURCE = "VAR x: Integer = 1;\nVAL y: Decimal = 2.0;\n"
+            + "FUN f() DO\n    x = x + 1;\nEND\n"
+            + "FUN g(a: Integer): Integer DO\n    RETURN a;\nEND\n"
+            + "FUN h() DO\n    print(\"h\");\nEND\n";
+
+    @ParameterizedTest
+    @MethodSource
+    void testEdit(String test, int offset, int removed, String inserted) {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        test(parser, offset, removed, inserted);
+    }
+
+    private static Stream<Arguments> testEdit() {
+        return Stream.of(
+                Arguments.of("Edit Global", SOURCE.indexOf("1;"), 1, "42"),
+                Arguments.of("Edit Function", SOURCE.indexOf("a;"), 1, "a * 2"),
+                Arguments.of("Insert Function", SOURCE.indexOf("FUN g"), 0, "FUN e() DO END\n"),
+                Arguments.of("Insert Global", SOURCE.indexOf("FUN f"), 0, "LIST z: Integer = [1];\n"),
+                Arguments.of("Delete Function", SOURCE.indexOf("FUN g"), SOURCE.indexOf("FUN h") - SOURCE.indexOf("FUN g"), ""),
+                Arguments.of("Merge Functions", SOURCE.indexOf("END\nFUN g"), 4, ""),
+                Arguments.of("Join Tokens", SOURCE.indexOf("\nFUN h"), 1, ""),
+                Arguments.of("Global After Function", SOURCE.indexOf("FUN h"), 0, "VAR z: Integer = 0;\n"),
+                Arguments.of("Whitespace", SOURCE.indexOf("FUN g") - 1, 0, "\n\n"),
+                Arguments.of("Append", SOURCE.length(), 0, "FUN i() DO END"),
+                Arguments.of("Delete All", 0, SOURCE.length(), "")
+        );
+    }
+
+    @Test
+    void testReuse() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        Ast.Source before = parser.getAst();
+        Ast.Source after = parser.edit(SOURCE.indexOf("a;"), 1, "a * 2");
+        Assertions.assertSame(before.getGlobals().get(0), after.getGlobals().get(0));
+        Assertions.assertSame(before.getGlobals().get(1), after.getGlobals().get(1));
+        Assertions.assertSame(before.getFunctions().get(0), after.getFunctions().get(0));
+        Assertions.assertNotSame(before.getFunctions().get(1), after.getFunctions().get(1));
+        Assertions.assertSame(before.getFunctions().get(2), after.getFunctions().get(2));
+    }
+
+    @Test
+    void testRecovery() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        int offset = SOURCE.indexOf("a;");
+        Assertions.assertThrows(ParseException.class, () -> parser.edit(offset, 1, ""));
+        Assertions.assertThrows(IllegalStateException.class, parser::getAst);
+        test(parser, offset, 0, "a");
+    }
+
+    @Test
+    void testRandomEdits() {
+        String[] snippets = {"x", "1", " + 2", ";", " ", "\n", "(", ")", "END\n", "FUN k() DO\n",
+                "VAR v: Integer = 1;\n", "RETURN 0;\n", "\"", "IF x DO\n"};
+        Random random = new Random(42);
+        IncrementalParser parser = new IncrementalParser(Programs.source(8));
+        for (int i = 0; i < 2000; i++) {
+            String source = parser.getSource();
+            int offset = random.nextInt(source.length() + 1);
+            int removed = random.nextInt(Math.min(8, source.length() - offset) + 1);
+            String inserted = random.nextBoolean() ? "" : snippets[random.nextInt(snippets.length)];
+            test(parser, offset, removed, inserted);
+        }
+    }
+
+    @Test
+    void testRandomValidEdits() {
+        Random random = new Random(42);
+        IncrementalParser parser = new IncrementalParser(Programs.source(8));
+        for (int i = 0; i < 1000; i++) {
+            String source = parser.getSource();
+            int offset = random.nextInt(source.length());
+            switch (random.nextInt(3)) {
+                case 0:
+                    int semicolon = source.indexOf(";\n", offset);
+                    if (semicolon >= 0 && !source.startsWith("]", semicolon - 1)) {
+                        test(parser, semicolon, 0, " + " + i);
+                    }
+                    break;
+                case 1:
+                    int function = source.indexOf("FUN ", offset);
+                    test(parser, function >= 0 ? function : source.length(), 0, "FUN k" + i + "() DO\n    RETURN " + i + ";\nEND\n");
+                    break;
+                default:
+                    int start = source.indexOf("FUN ", offset);
+                    int end = start >= 0 ? source.indexOf("FUN ", start + 1) : -1;
+                    if (end >= 0) {
+                        test(parser, start, end - start, "");
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static void test(IncrementalParser parser, int offset, int removed, String inserted) {
+        String source = parser.getSource();
+        source = source.substring(0, offset) + inserted + source.substring(offset + removed);
+        Object expected;
+        try {
+            expected = new Parser(new Lexer(source).lex()).parseSource();
+        } catch (ParseException e) {
+            expected = e;
+        }
+        try {
+            Assertions.assertEquals(expected, parser.edit(offset, removed, inserted), source);
+            Assertions.assertEquals(expected, parser.getAst(), source);
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e, source);
+        }
+        Assertions.assertEquals(source, parser.getSource());
+    }
+
+}
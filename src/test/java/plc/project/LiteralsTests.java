@@ -0,0 +1,77 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks the values decoded by {@link TableLexer} while lexing against the
+ * values decoded from the literals of the same tokens.
+ */
+public class LiteralsTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testValue(String input, Object expected) {
+        List<Token> tokens = new Lexer(input).lex();
+        Assertions.assertEquals(1, tokens.size());
+        Assertions.assertEquals(expected, tokens.get(0).getValue());
+        Token token = new Token(tokens.get(0).getType(), tokens.get(0).getLiteral(), 0);
+        Assertions.assertEquals(expected, token.getValue());
+        Assertions.assertEquals(expected, new TableLexer(input).lexBuffer().getValue(0));
+    }
+
+    private static Stream<Arguments> testValue() {
+        return Stream.of(
+                Arguments.of("0", BigInteger.ZERO),
+                Arguments.of("-0 ", BigInteger.ZERO),
+                Arguments.of("12345", BigInteger.valueOf(12345)),
+                Arguments.of("-9223372036854775808", BigInteger.valueOf(Long.MIN_VALUE)),
+                Arguments.of("9223372036854775807", BigInteger.valueOf(Long.MAX_VALUE)),
+                Arguments.of("9223372036854775808", new BigInteger("9223372036854775808")),
+                Arguments.of("-123456789012345678901234567890", new BigInteger("-123456789012345678901234567890")),
+                Arguments.of("1.50", new BigDecimal("1.50")),
+                Arguments.of("-0.0", new BigDecimal("-0.0")),
+                Arguments.of("-0.5", new BigDecimal("-0.5")),
+                Arguments.of("123456789012345678901234567890.5", new BigDecimal("123456789012345678901234567890.5")),
+                Arguments.of("'c'", 'c'),
+                Arguments.of("'\\n'", '\n'),
+                Arguments.of("'\\''", '\''),
+                Arguments.of("'\\\\'", '\\'),
+                Arguments.of("\"\"", ""),
+                Arguments.of("\"plain\"", "plain"),
+                Arguments.of("\"Hello,\\nWorld!\"", "Hello,\nWorld!"),
+                Arguments.of("\"\\b\\t\\r\\'\\\"\"", "\b\t\r'\""),
+                Arguments.of("\"\\\\n\"", "\\n"),
+                Arguments.of("name", null),
+                Arguments.of("&&", null)
+        );
+    }
+
+    @Test
+    void testLong() {
+        List<Token> tokens = new Lexer("-9223372036854775808 9223372036854775808 1.5").lex();
+        Assertions.assertTrue(tokens.get(0).isLong());
+        Assertions.assertEquals(Long.MIN_VALUE, tokens.get(0).getLongValue());
+        Assertions.assertFalse(tokens.get(1).isLong());
+        Assertions.assertFalse(tokens.get(2).isLong());
+        Assertions.assertThrows(IllegalStateException.class, () -> tokens.get(2).getLongValue());
+    }
+
+    @Test
+    void testProgram() {
+        String input = Programs.source(20);
+        for (Token token : new Lexer(input).lex()) {
+            Token expected = new Token(token.getType(), token.getLiteral(), token.getIndex());
+            Assertions.assertEquals(expected.getValue(), token.getValue(), token.toString());
+        }
+    }
+
+}
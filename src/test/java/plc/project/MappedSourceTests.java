@@ -0,0 +1,88 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class MappedSourceTests {
+
+    @Test
+    void testLex() throws IOException {
+        String input = Programs.source(20);
+        Path path = Files.createTempFile("plc", ".plc");
+        try {
+            Files.writeString(path, input, StandardCharsets.ISO_8859_1);
+            MappedSource source = MappedSource.open(path);
+            Assertions.assertEquals(input.length(), source.length());
+            Assertions.assertEquals(new Lexer(input).lex(), new TableLexer(source).lex());
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    void testScans() {
+        String input = "        \"plain string contents \\n ending\"        \n\r";
+        for (int start = 0; start < 8; start++) {
+            MappedSource source = new MappedSource(StandardCharsets.ISO_8859_1.encode(input)).subSequence(start, input.length());
+            for (int i = 0; i <= source.length(); i++) {
+                int space = i;
+                while (space < source.length() && source.charAt(space) == ' ') {
+                    space++;
+                }
+                int quote = i;
+                while (quote < source.length() && "\"\\\n\r".indexOf(source.charAt(quote)) < 0) {
+                    quote++;
+                }
+                Assertions.assertEquals(space, source.indexOfNonSpace(i));
+                Assertions.assertEquals(quote, source.indexOfStringBreak(i));
+            }
+        }
+    }
+
+    @Test
+    void testLexLongStrings() {
+        String body = "a long string literal with \\\"escapes\\\" and \u00e9 accents ".repeat(8);
+        String input = "                LET s = \"" + body + "\";\n\t    \\ x = \"" + body + "\"";
+        MappedSource source = new MappedSource(StandardCharsets.ISO_8859_1.encode(input));
+        Assertions.assertEquals(new Lexer(input).lex(), new TableLexer(source).lex());
+        for (String end : new String[] {"", "\n\"", "\r\"", "\\q\""}) {
+            String invalid = "LET s = \"" + body + end;
+            ParseException expected = Assertions.assertThrows(ParseException.class, () -> new Lexer(invalid).lex());
+            ParseException actual = Assertions.assertThrows(ParseException.class,
+                    () -> new TableLexer(new MappedSource(StandardCharsets.ISO_8859_1.encode(invalid))).lex());
+            Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+        }
+    }
+
+    @Test
+    void testSubSequence() {
+        MappedSource source = new MappedSource(StandardCharsets.ISO_8859_1.encode("LET name = \"value\";"));
+        Assertions.assertEquals("name", source.subSequence(4, 8).toString());
+        Assertions.assertEquals('m', source.subSequence(4, 8).charAt(2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> source.subSequence(4, 8).charAt(4));
+    }
+
+    @Test
+    void testException() {
+        MappedSource source = new MappedSource(StandardCharsets.ISO_8859_1.encode("LET x = \"unterminated"));
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> new TableLexer(source).lex());
+        Assertions.assertEquals(21, exception.getIndex());
+    }
+
+    @Test
+    void testLazyLiteral() {
+        StringBuilder source = new StringBuilder("LET name");
+        List<Token> tokens = new TableLexer(source).lex();
+        Assertions.assertEquals(4, tokens.get(1).getLength());
+        Assertions.assertEquals("name", tokens.get(1).getLiteral());
+        source.setCharAt(4, 'g');
+        Assertions.assertEquals("name", tokens.get(1).getLiteral());
+    }
+
+}
@@ -0,0 +1,68 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link ParallelLexer} produces exactly the same tokens and
+ * exceptions as {@link Lexer#lex()} for any chunk size.
+ */
+public class ParallelLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquivalence(String test, String input) {
+        for (int chunkSize = 1; chunkSize <= 32; chunkSize++) {
+            test(input, chunkSize);
+        }
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Program", Programs.source(4)),
+                Arguments.of("Single Line", "LET x = \"a long string without newlines\" + 'c' - -0.5;"),
+                Arguments.of("Blank Lines", "\n\n\nLET\n\n\nx\n\n"),
+                Arguments.of("Trailing Newline", "x\n"),
+                Arguments.of("Empty", ""),
+                Arguments.of("Unterminated String", "LET x = 1;\nLET y = \"unterminated\nLET z = 2;\n"),
+                Arguments.of("Later Exception", "LET x = 1;\nLET y = 2;\nLET z = ''\n"),
+                Arguments.of("Newline Character", "LET c = '\n';\n")
+        );
+    }
+
+    @Test
+    void testPools() {
+        String input = Programs.source(200);
+        List<Token> expected = new Lexer(input).lex();
+        for (int threads = 1; threads <= 4; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Assertions.assertEquals(expected, new ParallelLexer(input, 1024).lex(pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void test(String input, int chunkSize) {
+        Object expected;
+        try {
+            expected = new Lexer(input).lex();
+        } catch (ParseException e) {
+            expected = e;
+        }
+        try {
+            Assertions.assertEquals(expected, new ParallelLexer(input, chunkSize).lex(), input);
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e, input);
+        }
+    }
+
+}
@@ -0,0 +1,70 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link ParallelParser} produces exactly the same source and
+ * exceptions as {@link Parser#parseSource()} for any chunk size.
+ */
+public class ParallelParserTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquivalence(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        for (int chunkSize = 1; chunkSize <= 64; chunkSize++) {
+            test(tokens, chunkSize);
+        }
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Program", Programs.source(8)),
+                Arguments.of("Globals Only", "VAR x: Integer = 1; VAL y: Decimal = 2.0;"),
+                Arguments.of("Functions Only", "FUN f() DO END FUN g(x: Integer): Integer DO RETURN x; END"),
+                Arguments.of("Empty", ""),
+                Arguments.of("Missing End", "FUN f() DO RETURN 1; FUN g() DO END FUN h() DO END"),
+                Arguments.of("Global After Function", "FUN f() DO END VAR x: Integer = 1; FUN g() DO END"),
+                Arguments.of("Later Exception", "FUN f() DO END FUN g() DO x = ; END FUN h() DO y = ; END"),
+                Arguments.of("Global Exception", "VAR x: Integer = ; FUN f() DO x = ; END"),
+                Arguments.of("FUN Identifier", "FUN f() DO x = FUN; END")
+        );
+    }
+
+    @Test
+    void testPools() {
+        List<Token> tokens = new Lexer(Programs.source(200)).lex();
+        Ast.Source expected = new Parser(tokens).parseSource();
+        for (int threads = 1; threads <= 4; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Assertions.assertEquals(expected, new ParallelParser(tokens, 256).parseSource(pool));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void test(List<Token> tokens, int chunkSize) {
+        Object expected;
+        try {
+            expected = new Parser(tokens).parseSource();
+        } catch (ParseException e) {
+            expected = e;
+        }
+        try {
+            Assertions.assertEquals(expected, new ParallelParser(tokens, chunkSize).parseSource());
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e);
+        }
+    }
+
+}
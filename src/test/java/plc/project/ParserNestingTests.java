@@ -0,0 +1,151 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ParserNestingTests {
+
+    private static final int DEPTH = 100_000;
+
+    @ParameterizedTest
+    @MethodSource
+    void testStatement(String input, Ast.Statement expected) {
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).lex()).parseStatement());
+    }
+
+    private static Stream<Arguments> testStatement() {
+        return Stream.of(
+                Arguments.of("IF a DO WHILE b DO c; END ELSE RETURN d; END",
+                        new Ast.Statement.If(access("a"),
+                                Arrays.asList(new Ast.Statement.While(access("b"), Arrays.asList(statement(access("c"))))),
+                                Arrays.asList(new Ast.Statement.Return(access("d"))))),
+                Arguments.of("SWITCH a CASE b: IF c DO END DEFAULT d = e; END",
+                        new Ast.Statement.Switch(access("a"), Arrays.asList(
+                                new Ast.Statement.Case(Optional.of(access("b")), Arrays.asList(
+                                        new Ast.Statement.If(access("c"), new ArrayList<>(), new ArrayList<>()))),
+                                new Ast.Statement.Case(Optional.empty(), Arrays.asList(
+                                        new Ast.Statement.Assignment(access("d"), access("e"))))))),
+                Arguments.of("f(g(), a[b + c], (d)) = x[y[z]];",
+                        new Ast.Statement.Assignment(
+                                new Ast.Expression.Function("f", Arrays.asList(
+                                        new Ast.Expression.Function("g", new ArrayList<>()),
+                                        new Ast.Expression.Access(Optional.of(new Ast.Expression.Binary("+", access("b"), access("c"))), "a"),
+                                        new Ast.Expression.Group(access("d")))),
+                                new Ast.Expression.Access(Optional.of(new Ast.Expression.Access(Optional.of(access("z")), "y")), "x")))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testParseException(String input, String message, int index) {
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new Lexer(input).lex()).parseStatement());
+        Assertions.assertEquals(message, exception.getMessage());
+        Assertions.assertEquals(index, exception.getIndex());
+    }
+
+    private static Stream<Arguments> testParseException() {
+        return Stream.of(
+                Arguments.of("IF a DO WHILE b DO c END END", "Invalid statement: semicolon missing Invalid Block. Invalid Block.", 19),
+                Arguments.of("IF a DO WHILE b DO c;", "Expected if END.", 22),
+                Arguments.of("f(a, );", "Expected expression.", 4),
+                Arguments.of("f(a b);", "Expected ')'.", 3),
+                Arguments.of("x[a;", "Invalid call to list.", 3)
+        );
+    }
+
+    @Test
+    void testWhileGuard() {
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new Lexer("x;").lex()).parseWhileStatement());
+        Assertions.assertEquals("Invalid parseWhileStatement.", exception.getMessage());
+        Assertions.assertEquals(0, exception.getIndex());
+    }
+
+    @Test
+    void testDeepIf() {
+        String input = "IF x DO ".repeat(DEPTH) + "RETURN x;" + " END".repeat(DEPTH);
+        Ast.Statement statement = new Parser(new Lexer(input).lex()).parseStatement();
+        for (int i = 0; i < DEPTH; i++) {
+            Assertions.assertTrue(statement instanceof Ast.Statement.If);
+            List<Ast.Statement> statements = ((Ast.Statement.If) statement).getThenStatements();
+            Assertions.assertEquals(1, statements.size());
+            statement = statements.get(0);
+        }
+        Assertions.assertEquals(new Ast.Statement.Return(access("x")), statement);
+    }
+
+    @Test
+    void testDeepSource() {
+        String input = "FUN main() DO " + "WHILE x DO SWITCH x DEFAULT ".repeat(DEPTH / 2) + "x;" + " END END".repeat(DEPTH / 2) + " END";
+        Ast.Source source = new Parser(new Lexer(input).lex()).parseSource();
+        List<Ast.Statement> statements = source.getFunctions().get(0).getStatements();
+        for (int i = 0; i < DEPTH / 2; i++) {
+            Ast.Statement.Switch statement = (Ast.Statement.Switch) ((Ast.Statement.While) statements.get(0)).getStatements().get(0);
+            statements = statement.getCases().get(0).getStatements();
+        }
+        Assertions.assertEquals(Arrays.asList(statement(access("x"))), statements);
+    }
+
+    @Test
+    void testDeepUnclosedBlocks() {
+        String input = "IF x DO ".repeat(DEPTH) + "x;";
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new Lexer(input).lex()).parseStatement());
+        Assertions.assertEquals("Expected if END.", exception.getMessage());
+        Assertions.assertEquals(input.length() + 1, exception.getIndex());
+    }
+
+    @Test
+    void testDeepFunction() {
+        String input = "f(".repeat(DEPTH) + ")".repeat(DEPTH);
+        Ast.Expression expression = new Parser(new Lexer(input).lex()).parseExpression();
+        for (int i = 1; i < DEPTH; i++) {
+            List<Ast.Expression> arguments = ((Ast.Expression.Function) expression).getArguments();
+            Assertions.assertEquals(1, arguments.size());
+            expression = arguments.get(0);
+        }
+        Assertions.assertEquals(new Ast.Expression.Function("f", new ArrayList<>()), expression);
+    }
+
+    @Test
+    void testDeepAccess() {
+        String input = "x[".repeat(DEPTH) + "y" + "]".repeat(DEPTH);
+        Ast.Expression expression = new Parser(new Lexer(input).lex()).parseExpression();
+        for (int i = 0; i < DEPTH; i++) {
+            expression = ((Ast.Expression.Access) expression).getOffset().get();
+        }
+        Assertions.assertEquals(access("y"), expression);
+    }
+
+    @Test
+    void testDeepPrimary() {
+        String input = "(".repeat(DEPTH) + "f(x[y]) + z" + ")".repeat(DEPTH) + " * 2";
+        Parser parser = new Parser(new Lexer(input).lex());
+        Ast.Expression expression = parser.parsePrimaryExpression();
+        for (int i = 0; i < DEPTH; i++) {
+            expression = ((Ast.Expression.Group) expression).getExpression();
+        }
+        Ast.Expression call = new Ast.Expression.Function("f", Arrays.asList(new Ast.Expression.Access(Optional.of(access("y")), "x")));
+        Assertions.assertEquals(new Ast.Expression.Binary("+", call, access("z")), expression);
+        Assertions.assertEquals(call, new Parser(new Lexer("f(x[y]) + z").lex()).parsePrimaryExpression());
+    }
+
+    private static Ast.Statement statement(Ast.Expression expression) {
+        return new Ast.Statement.Expression(expression);
+    }
+
+    private static Ast.Expression access(String name) {
+        return new Ast.Expression.Access(Optional.empty(), name);
+    }
+
+}
@@ -0,0 +1,103 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class ParserPrecedenceTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testPrecedence(String input, Ast.Expression expected) {
+        Assertions.assertEquals(expected, parse(input));
+    }
+
+    private static Stream<Arguments> testPrecedence() {
+        return Stream.of(
+                Arguments.of("a + b * c", binary("+", access("a"), binary("*", access("b"), access("c")))),
+                Arguments.of("a * b + c", binary("+", binary("*", access("a"), access("b")), access("c"))),
+                Arguments.of("a - b - c", binary("-", binary("-", access("a"), access("b")), access("c"))),
+                Arguments.of("a ^ b ^ c", binary("^", binary("^", access("a"), access("b")), access("c"))),
+                Arguments.of("a && b || c", binary("||", binary("&&", access("a"), access("b")), access("c"))),
+                Arguments.of("a < b + c && d != e",
+                        binary("&&",
+                                binary("<", access("a"), binary("+", access("b"), access("c"))),
+                                binary("!=", access("d"), access("e")))),
+                Arguments.of("a * (b + c)", binary("*", access("a"), group(binary("+", access("b"), access("c"))))),
+                Arguments.of("(a || b) && c", binary("&&", group(binary("||", access("a"), access("b"))), access("c"))),
+                Arguments.of("((a))", group(group(access("a")))),
+                Arguments.of("f(a + b, (c)) * d",
+                        binary("*", new Ast.Expression.Function("f", Arrays.asList(
+                                binary("+", access("a"), access("b")), group(access("c")))), access("d")))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testParseException(String input, String message, int index) {
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> parse(input));
+        Assertions.assertEquals(message, exception.getMessage());
+        Assertions.assertEquals(index, exception.getIndex());
+    }
+
+    private static Stream<Arguments> testParseException() {
+        return Stream.of(
+                Arguments.of("(a + b", "Expected ')'.", 6),
+                Arguments.of("a * (", "Expected expression.", 5),
+                Arguments.of("a +", "Expected Ast.Expression.", 3),
+                Arguments.of("(a b)", "Expected ')'.", 2)
+        );
+    }
+
+    @Test
+    void testLongChain() {
+        StringBuilder builder = new StringBuilder("x");
+        for (int i = 0; i < 100_000; i++) {
+            builder.append(i % 2 == 0 ? " + x" : " * x");
+        }
+        Ast.Expression expression = parse(builder.toString());
+        int depth = 0;
+        while (expression instanceof Ast.Expression.Binary) {
+            Ast.Expression.Binary binary = (Ast.Expression.Binary) expression;
+            Assertions.assertEquals("+", binary.getOperator());
+            expression = binary.getLeft();
+            depth++;
+        }
+        Assertions.assertEquals(50_000, depth);
+    }
+
+    @Test
+    void testDeepParentheses() {
+        int depth = 100_000;
+        String input = "(".repeat(depth) + "x" + ")".repeat(depth);
+        Ast.Expression expression = parse(input);
+        for (int i = 0; i < depth; i++) {
+            Assertions.assertTrue(expression instanceof Ast.Expression.Group);
+            expression = ((Ast.Expression.Group) expression).getExpression();
+        }
+        Assertions.assertEquals(access("x"), expression);
+    }
+
+    private static Ast.Expression parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseExpression();
+    }
+
+    private static Ast.Expression binary(String operator, Ast.Expression left, Ast.Expression right) {
+        return new Ast.Expression.Binary(operator, left, right);
+    }
+
+    private static Ast.Expression group(Ast.Expression expression) {
+        return new Ast.Expression.Group(expression);
+    }
+
+    private static Ast.Expression access(String name) {
+        return new Ast.Expression.Access(Optional.empty(), name);
+    }
+
+}
@@ -0,0 +1,51 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Checks that a stackless {@link Parser} throws exceptions with the same
+ * message and index as the default parser, but without a stack trace.
+ */
+public class ParserStacklessTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testStackless(String test, String input) {
+        List<Token> tokens = new Lexer(input).lex();
+        Object expected;
+        try {
+            expected = new Parser(tokens).parseSource();
+        } catch (ParseException e) {
+            Assertions.assertNotEquals(0, e.getStackTrace().length);
+            expected = e;
+        }
+        Parser parser = new Parser(tokens);
+        parser.setStackless(true);
+        try {
+            Assertions.assertEquals(expected, parser.parseSource());
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e);
+            Assertions.assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    private static Stream<Arguments> testStackless() {
+        return Stream.of(
+                Arguments.of("Valid", Programs.source(2)),
+                Arguments.of("Missing Semicolon", "VAR x: Integer = 1"),
+                Arguments.of("Missing Expression", "FUN f() DO x = ; END"),
+                Arguments.of("Missing Parenthesis", "FUN f() DO print((1 + 2); END"),
+                Arguments.of("Nested Block", "FUN f() DO IF x DO WHILE y DO z = 1 END END END"),
+                Arguments.of("Missing End", "FUN f() DO RETURN 1;"),
+                Arguments.of("Global After Function", "FUN f() DO END VAR x: Integer = 1;"),
+                Arguments.of("Invalid Token", "x = 1;")
+        );
+    }
+
+}
@@ -0,0 +1,66 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Checks that {@link Parser#parseSource(java.util.function.Consumer,
+ * java.util.function.Consumer)} passes on the same globals and functions as
+ * {@link Parser#parseSource()}, as soon as each one is parsed.
+ */
+public class ParserStreamingTests {
+
+    @Test
+    void testEquivalence() {
+        String input = Programs.source(20);
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        List<Ast.Global> globals = new ArrayList<>();
+        List<Ast.Function> functions = new ArrayList<>();
+        new Parser(new StreamingLexer(new StringReader(input), 16)).parseSource(globals::add, functions::add);
+        Assertions.assertEquals(expected, new Ast.Source(globals, functions));
+    }
+
+    @Test
+    void testIncremental() {
+        List<Token> tokens = new Lexer(Programs.source(20)).lex();
+        int[] pulled = {0};
+        Iterator<Token> iterator = new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return pulled[0] < tokens.size();
+            }
+
+            @Override
+            public Token next() {
+                return tokens.get(pulled[0]++);
+            }
+
+        };
+        List<Integer> progress = new ArrayList<>();
+        new Parser(iterator).parseSource(global -> progress.add(pulled[0]), function -> progress.add(pulled[0]));
+        Assertions.assertEquals(22, progress.size());
+        for (int i = 1; i < progress.size(); i++) {
+            Assertions.assertTrue(progress.get(i - 1) < progress.get(i));
+        }
+        Assertions.assertTrue(progress.get(2) < tokens.size() / 10);
+    }
+
+    @Test
+    void testException() {
+        String input = "FUN f() DO END\nFUN g() DO x = ; END\n";
+        List<Ast.Function> functions = new ArrayList<>();
+        ParseException exception = Assertions.assertThrows(ParseException.class, () ->
+                new Parser(new StreamingLexer(new StringReader(input))).parseSource(global -> {}, functions::add));
+        Assertions.assertEquals(Assertions.assertThrows(ParseException.class, () ->
+                new Parser(new Lexer(input).lex()).parseSource()), exception);
+        Assertions.assertEquals(1, functions.size());
+        Assertions.assertEquals("f", functions.get(0).getName());
+    }
+
+}
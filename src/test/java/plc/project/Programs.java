@@ -0,0 +1,89 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * A program using every kind of node, a generator of larger programs, and
+ * helpers running the compiler phases on sources, shared by the tests.
+ */
+final class Programs {
+
+    static final String PROGRAM = "VAR x: Integer = 1;\n"
+            + "LIST l: Decimal = [1.0, 2.5];\n"
+            + "FUN main(): Integer DO\n"
+            + "    LET y = x + 2;\n"
+            + "    IF x > 0 && TRUE DO\n"
+            + "        print(\"positive\\n\");\n"
+            + "    ELSE\n"
+            + "        x = x - 1;\n"
+            + "    END\n"
+            + "    SWITCH x CASE 1: print('c'); DEFAULT print(NIL); END\n"
+            + "    WHILE x < 10 DO x = (x + 1) * 2; END\n"
+            + "    RETURN x;\n"
+            + "END\n";
+
+    private Programs() {}
+
+    /**
+     * Generates a program with the given number of functions, using every
+     * kind of token the lexer supports.
+     */
+    static String source(int functions) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("VAR counter: Integer = 0;\n");
+        builder.append("LIST values: Decimal = [1.5, -2.25, 0.0];\n");
+        for (int i = 0; i < functions; i++) {
+            builder.append("FUN function").append(i).append("(x: Integer, c: Character): Integer DO\n");
+            builder.append("    LET name = \"function\\t").append(i).append("\\n\";\n");
+            builder.append("    IF x != ").append(i).append(" && c == 'c' DO\n");
+            builder.append("        counter = counter + x * ").append(i % 97).append(" - 1;\n");
+            builder.append("    ELSE\n");
+            builder.append("        print(name + '\\'');\n");
+            builder.append("    END\n");
+            builder.append("    RETURN counter / -").append(i + 1).append(";\n");
+            builder.append("END\n");
+        }
+        return builder.toString();
+    }
+
+    static Ast.Source parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseSource();
+    }
+
+    static Ast.Source analyze(String input) {
+        Ast.Source source = parse(input);
+        new Analyzer(new Scope(null)).visit(source);
+        return source;
+    }
+
+    /**
+     * Returns the value returned by the {@code main} function of the source.
+     */
+    static Object interpret(Ast.Source source) {
+        return new Interpreter(new Scope(null)).visit(source).getValue();
+    }
+
+    static String generate(Ast.Source source) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(source);
+        return writer.toString();
+    }
+
+    /**
+     * Checks that the analyzed {@link #PROGRAM} shares the variable of the
+     * global {@code x} with the accesses to it, and has the types and
+     * functions set by the {@link Analyzer}.
+     */
+    static void assertAnalyzed(Ast.Source source) {
+        Ast.Global global = source.getGlobals().get(0);
+        Ast.Statement.If statement = (Ast.Statement.If) source.getFunctions().get(0).getStatements().get(1);
+        Ast.Statement.Assignment assignment = (Ast.Statement.Assignment) statement.getElseStatements().get(0);
+        Assertions.assertSame(global.getVariable(), ((Ast.Expression.Access) assignment.getReceiver()).getVariable());
+        Assertions.assertEquals(Environment.Type.INTEGER, ((Ast.Expression.Binary) assignment.getValue()).getType());
+        Assertions.assertEquals(Environment.Type.INTEGER, source.getFunctions().get(0).getFunction().getReturnType());
+    }
+
+}
@@ -0,0 +1,100 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Checks that {@link StreamingLexer} produces the same tokens as
+ * {@link Lexer#lex()} regardless of where the buffer boundaries fall.
+ */
+public class StreamingLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testBufferBoundaries(String test, String input) {
+        for (int capacity = 4; capacity <= 16; capacity++) {
+            test(input, capacity);
+        }
+    }
+
+    private static Stream<Arguments> testBufferBoundaries() {
+        return Stream.of(
+                Arguments.of("Identifiers", "LET thelegend27 = @name;"),
+                Arguments.of("Numbers", "1 -1 -0 -0x -0.5 123.456 1. 01 x-0"),
+                Arguments.of("Long String", "\"a string literal much longer than the buffer \\n\\t\" 'c'"),
+                Arguments.of("Whitespace", "   \n\n\t\t\t\\\\       LET      "),
+                Arguments.of("Operators", "!= == && & ! = ; ( )"),
+                Arguments.of("Program", Programs.source(3))
+        );
+    }
+
+    @Test
+    void testRandomInputs() {
+        String alphabet = "aZ@_-09.'\"\\ \n\r\t!=&;bn";
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(24);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            test(builder.toString(), 4 + random.nextInt(8));
+        }
+    }
+
+    @Test
+    void testException() {
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new StreamingLexer(new StringReader("LET x = \"unterminated"), 4).forEachRemaining(token -> {}));
+        Assertions.assertEquals(21, exception.getIndex());
+    }
+
+    @Test
+    void testChannel() {
+        String input = Programs.source(2);
+        StreamingLexer lexer = new StreamingLexer(Channels.newChannel(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))), StandardCharsets.UTF_8);
+        List<Token> tokens = new ArrayList<>();
+        StreamSupport.stream(lexer.spliterator(), false).forEach(tokens::add);
+        Assertions.assertEquals(new Lexer(input).lex(), tokens);
+    }
+
+    @Test
+    void testParser() {
+        String input = "VAR x: Integer = 1;\nFUN main(): Integer DO\n    RETURN x + 1;\nEND";
+        Assertions.assertEquals(
+                new Parser(new Lexer(input).lex()).parseSource(),
+                new Parser(new StreamingLexer(new StringReader(input), 8)).parseSource()
+        );
+    }
+
+    private static void test(String input, int capacity) {
+        Object expected;
+        try {
+            expected = new Lexer(input).lex();
+        } catch (ParseException e) {
+            expected = e.getIndex();
+        }
+        List<Token> actual = new ArrayList<>();
+        try {
+            new StreamingLexer(new StringReader(input), capacity).forEachRemaining(actual::add);
+            Assertions.assertEquals(expected, actual, input);
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e.getIndex(), input);
+        }
+    }
+
+}
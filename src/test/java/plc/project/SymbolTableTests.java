@@ -0,0 +1,65 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class SymbolTableTests {
+
+    @Test
+    void testIntern() {
+        SymbolTable symbols = new SymbolTable();
+        int id = symbols.intern("name");
+        Assertions.assertEquals(SymbolTable.KEYWORDS.length, id);
+        Assertions.assertEquals(id, symbols.intern("LET name", 4, 4));
+        Assertions.assertEquals(id, symbols.lookup("name"));
+        Assertions.assertEquals(-1, symbols.lookup("other"));
+        Assertions.assertEquals("name", symbols.getName(id));
+    }
+
+    @Test
+    void testKeywords() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < SymbolTable.KEYWORDS.length; i++) {
+            Assertions.assertEquals(i, symbols.lookup(SymbolTable.KEYWORDS[i]));
+            Assertions.assertSame(SymbolTable.KEYWORDS[i], symbols.getName(i));
+        }
+    }
+
+    @Test
+    void testGrowth() {
+        SymbolTable symbols = new SymbolTable();
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(SymbolTable.KEYWORDS.length + i, symbols.intern("name" + i));
+        }
+        for (int i = 0; i < 10000; i++) {
+            Assertions.assertEquals(SymbolTable.KEYWORDS.length + i, symbols.lookup("name" + i));
+        }
+    }
+
+    @Test
+    void testLex() {
+        String input = "LET x = x + y; LET y = x;";
+        SymbolTable symbols = new SymbolTable();
+        List<Token> tokens = new Lexer(input).lex(symbols);
+        Assertions.assertEquals(new Lexer(input).lex(), tokens);
+        Assertions.assertEquals(symbols.lookup("LET"), tokens.get(0).getSymbol());
+        Assertions.assertEquals(tokens.get(1).getSymbol(), tokens.get(3).getSymbol());
+        Assertions.assertSame(tokens.get(1).getLiteral(), tokens.get(10).getLiteral());
+        Assertions.assertEquals(-1, tokens.get(2).getSymbol());
+    }
+
+    @Test
+    void testTokenBuffer() {
+        String input = Programs.source(5);
+        SymbolTable symbols = new SymbolTable();
+        TokenBuffer buffer = new TableLexer(input, 0, symbols).lexBuffer();
+        Assertions.assertEquals(new Lexer(input).lex(), buffer.asList());
+        Assertions.assertEquals(
+                new Parser(new Lexer(input).lex()).parseSource(),
+                new Parser(buffer).parseSource()
+        );
+    }
+
+}
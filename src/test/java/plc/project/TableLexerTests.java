@@ -0,0 +1,80 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Checks that {@link TableLexer} produces exactly the same tokens and
+ * exceptions as the regex based {@link Lexer#lexRegex()}.
+ */
+public class TableLexerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquivalence(String test, String input) {
+        test(input);
+    }
+
+    private static Stream<Arguments> testEquivalence() {
+        return Stream.of(
+                Arguments.of("Identifier", "@getName thelegend27 the-leg_end"),
+                Arguments.of("Integer", "0 1 12345 -1 -1893"),
+                Arguments.of("Decimal", "123.456 -1.0 0.5 -0.00000 1. 1..7 1.4.7"),
+                Arguments.of("Negative Zero", "-0 -01 -0x -0.1 -"),
+                Arguments.of("Leading Zero", "01 00.1"),
+                Arguments.of("Character", "'c' '\\n' '\\\\' '\\''"),
+                Arguments.of("Empty Character", "''"),
+                Arguments.of("Unterminated Character", "'a"),
+                Arguments.of("Lone Quote", "'"),
+                Arguments.of("Newline Character", "'\n'"),
+                Arguments.of("Invalid Character Escape", "'\\q'"),
+                Arguments.of("String", "\"sq\\'dq\\\"bs\\\\\" \"\" \"Hello,\\nWorld\""),
+                Arguments.of("Unterminated String", "\"unterminated"),
+                Arguments.of("Newline String", "\"unterminated\n\""),
+                Arguments.of("Invalid String Escape", "\"invalid\\escape\""),
+                Arguments.of("Operators", "; ) == != = ! && & || | ( (( < >"),
+                Arguments.of("Whitespace", " \b\t\r\n\\LET\\x"),
+                Arguments.of("Unicode", "\u00e9 \u03c0 \u2028 '\u2028'"),
+                Arguments.of("Program", "VAR i: Integer = 1;\nFUN main(): Integer DO\n" +
+                        "    WHILE i != 100 DO\n        print(\"i=\" + i);\n        i = i + 1;\n    END\n" +
+                        "    RETURN 0;\nEND")
+        );
+    }
+
+    @Test
+    void testRandomInputs() {
+        String alphabet = "aZ@_-09.'\"\\ \n\r\t\b!=&|;()bnrt\u2028\u00e9";
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int length = random.nextInt(16);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            test(builder.toString());
+        }
+    }
+
+    private static void test(String input) {
+        Object expected;
+        try {
+            expected = new Lexer(input).lexRegex();
+        } catch (ParseException e) {
+            expected = e;
+        }
+        try {
+            List<Token> actual = new Lexer(input).lex();
+            Assertions.assertEquals(expected, actual, input);
+        } catch (ParseException e) {
+            Assertions.assertEquals(expected, e, input);
+        }
+    }
+
+}
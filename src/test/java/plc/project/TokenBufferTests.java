@@ -0,0 +1,46 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class TokenBufferTests {
+
+    @Test
+    void testLexBuffer() {
+        String input = Programs.source(10);
+        TokenBuffer buffer = new TableLexer(input).lexBuffer();
+        Assertions.assertEquals(new Lexer(input).lex(), buffer.asList());
+    }
+
+    @Test
+    void testAccessors() {
+        TokenBuffer buffer = new TableLexer("LET name = 1.5;").lexBuffer();
+        Assertions.assertEquals(5, buffer.size());
+        Assertions.assertEquals(Token.Type.IDENTIFIER, buffer.getType(1));
+        Assertions.assertEquals(4, buffer.getIndex(1));
+        Assertions.assertEquals(4, buffer.getLength(1));
+        Assertions.assertEquals("name", buffer.getLiteral(1));
+        Assertions.assertEquals(new Token(Token.Type.DECIMAL, "1.5", 11), buffer.get(3));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> buffer.getType(5));
+    }
+
+    @Test
+    void testParser() {
+        String input = "VAR x: Integer = 1;\nFUN main(): Integer DO\n    IF x != 1 DO\n        print(\"no\");\n    END\n    RETURN x + 1;\nEND";
+        Assertions.assertEquals(
+                new Parser(new Lexer(input).lex()).parseSource(),
+                new Parser(new TableLexer(input).lexBuffer()).parseSource()
+        );
+    }
+
+    @Test
+    void testParserException() {
+        String input = "LET x = 1";
+        ParseException expected = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new Lexer(input).lex()).parseStatement());
+        ParseException actual = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new TableLexer(input).lexBuffer()).parseStatement());
+        Assertions.assertEquals(expected, actual);
+    }
+
+}
@@ -0,0 +1,71 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public class TokenKindTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testKind(String literal, Token.Kind expected) {
+        Assertions.assertEquals(expected, Token.Kind.of(literal, 0, literal.length()));
+    }
+
+    private static Stream<Arguments> testKind() {
+        return Stream.of(
+                Arguments.of("LET", Token.Kind.LET),
+                Arguments.of("DEFAULT", Token.Kind.DEFAULT),
+                Arguments.of("DO", Token.Kind.DO),
+                Arguments.of("&&", Token.Kind.AND),
+                Arguments.of("||", Token.Kind.OR),
+                Arguments.of("==", Token.Kind.EQUAL),
+                Arguments.of("!=", Token.Kind.NOT_EQUAL),
+                Arguments.of("=", Token.Kind.ASSIGN),
+                Arguments.of(";", Token.Kind.SEMICOLON),
+                Arguments.of("let", Token.Kind.NONE),
+                Arguments.of("LETS", Token.Kind.NONE),
+                Arguments.of("DEFAULTS", Token.Kind.NONE),
+                Arguments.of("&", Token.Kind.NONE),
+                Arguments.of("!", Token.Kind.NONE),
+                Arguments.of("\"LET\"", Token.Kind.NONE),
+                Arguments.of("-1", Token.Kind.NONE)
+        );
+    }
+
+    @Test
+    void testKeywords() {
+        for (String keyword : SymbolTable.KEYWORDS) {
+            Token.Kind kind = Token.Kind.of(keyword, 0, keyword.length());
+            Assertions.assertEquals(keyword, kind.name());
+        }
+    }
+
+    @Test
+    void testLexed() {
+        List<Token> tokens = new Lexer("IF a || b DO").lex();
+        Assertions.assertEquals(Token.Kind.IF, tokens.get(0).getKind());
+        Assertions.assertEquals(Token.Kind.NONE, tokens.get(1).getKind());
+        Assertions.assertEquals(new Token(Token.Type.OPERATOR, "||", 5), tokens.get(2));
+        Assertions.assertEquals(Token.Kind.OR, tokens.get(2).getKind());
+        TokenBuffer buffer = new TableLexer("IF a || b DO").lexBuffer();
+        Assertions.assertEquals(Token.Kind.OR, buffer.getKind(2));
+        Assertions.assertEquals(Token.Kind.DO, buffer.getKind(4));
+    }
+
+    @Test
+    void testParseOr() {
+        Ast.Expression expected = new Ast.Expression.Binary("||",
+                new Ast.Expression.Access(Optional.empty(), "a"),
+                new Ast.Expression.Access(Optional.empty(), "b"));
+        Assertions.assertEquals(expected, new Parser(new Lexer("a || b").lex()).parseExpression());
+        Assertions.assertEquals(expected, new Parser(new TableLexer("a || b").lexBuffer()).parseExpression());
+    }
+
+}